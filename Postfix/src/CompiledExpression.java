@@ -0,0 +1,166 @@
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * A postfix expression parsed once into a flat program, for formulas that
+ * are evaluated many times with different inputs.
+ *
+ * compile() accepts the same integer literals and + - * / operators as
+ * Postfix.evaluateExpression, plus named variables, and reports the same
+ * errors by throwing IllegalArgumentException. Each instruction is one int:
+ * the opcode in the low bits and, for literals and variables, an index into
+ * the constants or the variables above them. eval() runs that program on a
+ * long stack sized at compile time, so it does no parsing and allocates
+ * nothing, provided the caller passes an existing long[] rather than a
+ * list of arguments.
+ *
+ * Because the stack is reused, a CompiledExpression is not thread-safe;
+ * give each thread its own copy().
+ */
+public class CompiledExpression {
+    private static final int CONSTANT = 0;
+    private static final int VARIABLE = 1;
+    private static final int ADD = 2;
+    private static final int SUBTRACT = 3;
+    private static final int MULTIPLY = 4;
+    private static final int DIVIDE = 5;
+    private static final int OPCODE_BITS = 3;
+    private static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+    private final String source;
+    private final String[] variables;
+    private final int[] code;
+    private final long[] constants;
+    private final long[] stack;
+
+    private CompiledExpression(String source, String[] variables, int[] code, long[] constants, int maxDepth) {
+        this.source = source;
+        this.variables = variables;
+        this.code = code;
+        this.constants = constants;
+        this.stack = new long[maxDepth];
+    }
+
+    //Compiles expr. Each name in variables may appear in expr and takes
+    //the value at the same position in the array passed to eval().
+    public static CompiledExpression compile(String expr, String... variables) {
+        variables = variables.clone();
+        int[] code = new int[8];
+        long[] constants = new long[4];
+        int length = 0;
+        int constantCount = 0;
+        int depth = 0;
+        int maxDepth = 0;
+        Scanner scan = new Scanner(expr);
+        while (scan.hasNext()) {
+            int instruction;
+            if (scan.hasNextLong()) {
+                if (constantCount == constants.length) {
+                    constants = Arrays.copyOf(constants, constantCount * 2);
+                }
+                constants[constantCount] = scan.nextLong();
+                instruction = constantCount++ << OPCODE_BITS | CONSTANT;
+                depth++;
+            } else {
+                String token = scan.next();
+                int opcode = opcode(token);
+                if (opcode >= 0) {
+                    if (depth < 2) {
+                        throw new IllegalArgumentException("Too few operands");
+                    }
+                    instruction = opcode;
+                    depth--;
+                } else {
+                    int variable = indexOf(variables, token);
+                    if (variable < 0) {
+                        throw new IllegalArgumentException("Unknown operator: " + token);
+                    }
+                    instruction = variable << OPCODE_BITS | VARIABLE;
+                    depth++;
+                }
+            }
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = instruction;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        if (depth == 0) {
+            throw new IllegalArgumentException("Too few operands");
+        }
+        if (depth > 1) {
+            throw new IllegalArgumentException("Too many operands.");
+        }
+        return new CompiledExpression(expr, variables, Arrays.copyOf(code, length),
+                Arrays.copyOf(constants, constantCount), maxDepth);
+    }
+
+    //vars holds one value per variable, in the order given to compile().
+    public long eval(long... vars) {
+        if (vars.length != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " variables, got " + vars.length);
+        }
+        long[] stack = this.stack;
+        int top = -1;
+        for (int instruction : code) {
+            switch (instruction & OPCODE_MASK) {
+                case CONSTANT:
+                    stack[++top] = constants[instruction >>> OPCODE_BITS];
+                    break;
+                case VARIABLE:
+                    stack[++top] = vars[instruction >>> OPCODE_BITS];
+                    break;
+                case ADD:
+                    top--;
+                    stack[top] += stack[top + 1];
+                    break;
+                case SUBTRACT:
+                    top--;
+                    stack[top] -= stack[top + 1];
+                    break;
+                case MULTIPLY:
+                    top--;
+                    stack[top] *= stack[top + 1];
+                    break;
+                case DIVIDE:
+                    top--;
+                    stack[top] /= stack[top + 1];
+                    break;
+            }
+        }
+        return stack[0];
+    }
+
+    //A copy with its own stack, for use from another thread.
+    public CompiledExpression copy() {
+        return new CompiledExpression(source, variables, code, constants, stack.length);
+    }
+
+    private static int opcode(String token) {
+        switch (Postfix.checkValidOperator(token)) {
+            case '+':
+                return ADD;
+            case '-':
+                return SUBTRACT;
+            case '*':
+                return MULTIPLY;
+            case '/':
+                return DIVIDE;
+        }
+        return -1;
+    }
+
+    private static int indexOf(String[] variables, String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -1,9 +1,44 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class ArraySearch<T extends Comparable<? super T>> implements Search {
 
+    //Arrays at least this long are checked and scanned in parallel chunks.
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int CHUNK = 1 << 14;
+    //How many elements a chunk handles between checks of the shared flag.
+    private static final int CHECK_INTERVAL = 1024;
+    //Largest power-of-two hash table an int[] can hold.
+    private static final int MAX_HASH_CAPACITY = 1 << 30;
+
     private Comparable[] list;
+    //Computed once; the array must not be changed after construction.
+    private final boolean sorted;
+    //Optional open-addressing index from element to its first position.
+    //slots holds position + 1 (0 marks an empty slot) and hashes holds the
+    //matching hash codes, so probes rarely need to call equals().
+    private int[] slots;
+    private int[] hashes;
 
     public ArraySearch(T[] list) {
+        this(list, false);
+    }
+
+    //With hashIndex set, builds a hash index at construction time so
+    //index() is O(1) expected on unsorted arrays too.
+    public ArraySearch(T[] list, boolean hashIndex) {
         this.list = list;
+        this.sorted = list.length >= PARALLEL_THRESHOLD ? parallelIsSorted() : checkSorted();
+        if (hashIndex) {
+            buildHashIndex();
+        }
     }
 
     @Override
@@ -18,6 +53,16 @@ public class ArraySearch<T extends Comparable<? super T>> implements Search {
 
     @Override
     public boolean isSorted() {
+        return sorted;
+    }
+
+    //The backing array, for other Search implementations built from this
+    //one. Not copied.
+    Comparable[] elements() {
+        return list;
+    }
+
+    private boolean checkSorted() {
         for (int i = 0; i < list.length - 1; i++) {
             if (list[i].compareTo(list[i + 1]) > 0) {
                 return false;
@@ -28,6 +73,12 @@ public class ArraySearch<T extends Comparable<? super T>> implements Search {
 
     @Override
     public int index(Object obj) {
+        if (slots != null) {
+            return hashLookup(obj);
+        }
+        if (sorted && obj != null) {
+            return binarySearch(obj);
+        }
         for (int i = 0; i < list.length; i++) {
             if (list[i].equals(obj)) {
                 return i;
@@ -35,4 +86,253 @@ public class ArraySearch<T extends Comparable<? super T>> implements Search {
         }
         return -1;
     }
+
+    //Checks the order of the whole array again on the common fork-join
+    //pool. Each chunk also compares its last element with the next chunk's
+    //first, and all chunks stop as soon as any of them finds an inversion.
+    public boolean parallelIsSorted() {
+        AtomicBoolean inversion = new AtomicBoolean();
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int start = 0; start < list.length - 1; start += CHUNK) {
+            int from = start;
+            int to = Math.min(start + CHUNK, list.length - 1);
+            tasks.add(new RecursiveAction() {
+                @Override
+                @SuppressWarnings("unchecked")
+                protected void compute() {
+                    for (int i = from; i < to; i++) {
+                        if ((i - from) % CHECK_INTERVAL == 0 && inversion.get()) {
+                            return;
+                        }
+                        if (list[i].compareTo(list[i + 1]) > 0) {
+                            inversion.set(true);
+                            return;
+                        }
+                    }
+                }
+            });
+        }
+        ForkJoinTask.invokeAll(tasks);
+        return !inversion.get();
+    }
+
+    //Linear scan for obj split across the common fork-join pool. Returns
+    //the smallest matching position, like index(). A chunk stops early
+    //once a match has been found before its start.
+    public int parallelIndex(Object obj) {
+        if (list.length < PARALLEL_THRESHOLD) {
+            return index(obj);
+        }
+        AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int start = 0; start < list.length; start += CHUNK) {
+            int from = start;
+            int to = Math.min(start + CHUNK, list.length);
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    for (int i = from; i < to; i++) {
+                        if ((i - from) % CHECK_INTERVAL == 0 && best.get() < from) {
+                            return;
+                        }
+                        if (list[i].equals(obj)) {
+                            best.accumulateAndGet(i, Math::min);
+                            return;
+                        }
+                    }
+                }
+            });
+        }
+        ForkJoinTask.invokeAll(tasks);
+        return best.get() == Integer.MAX_VALUE ? -1 : best.get();
+    }
+
+    //Looks up a whole batch in one pass over the array instead of one
+    //search per query: O(n + q log q) rather than O(n * q).
+    @Override
+    public int[] indexAll(Object[] queries) {
+        if (slots != null) {
+            int[] result = new int[queries.length];
+            for (int i = 0; i < queries.length; i++) {
+                result[i] = hashLookup(queries[i]);
+            }
+            return result;
+        }
+        if (sorted) {
+            try {
+                return mergeJoin(queries);
+            } catch (ClassCastException e) {
+                //Some query is not comparable with the elements.
+                return Search.super.indexAll(queries);
+            }
+        }
+        return hashJoin(queries);
+    }
+
+    //Sorts the queries and walks them and the sorted array together,
+    //galloping from one query's position to the next: O(q log n) at worst
+    //and O(n) when the queries are dense.
+    @SuppressWarnings("unchecked")
+    private int[] mergeJoin(Object[] queries) {
+        int[] result = new int[queries.length];
+        Arrays.fill(result, -1);
+        Integer[] order = new Integer[queries.length];
+        int count = 0;
+        for (int i = 0; i < queries.length; i++) {
+            if (queries[i] != null) {
+                order[count++] = i;
+            }
+        }
+        Arrays.sort(order, 0, count, (a, b) -> ((Comparable) queries[a]).compareTo(queries[b]));
+        int position = 0;
+        for (int q = 0; q < count; q++) {
+            Object query = queries[order[q]];
+            position = gallop(query, position);
+            //Same check as binarySearch: first equals() among the elements
+            //that compare equal. position is not advanced past them, since
+            //the next query may match them too.
+            for (int i = position; i < list.length && list[i].compareTo(query) == 0; i++) {
+                if (list[i].equals(query)) {
+                    result[order[q]] = i;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    //Hashes the distinct queries and scans the array once, stopping early
+    //once every query has been found.
+    private int[] hashJoin(Object[] queries) {
+        Map<Object, Integer> distinct = new HashMap<>();
+        int[] ids = new int[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            if (queries[i] == null) {
+                ids[i] = -1;
+                continue;
+            }
+            Integer id = distinct.putIfAbsent(queries[i], distinct.size());
+            ids[i] = id == null ? distinct.size() - 1 : id;
+        }
+        int[] found = new int[distinct.size()];
+        Arrays.fill(found, -1);
+        int remaining = found.length;
+        for (int i = 0; i < list.length && remaining > 0; i++) {
+            Integer id = distinct.get(list[i]);
+            if (id != null && found[id] == -1) {
+                found[id] = i;
+                remaining--;
+            }
+        }
+        int[] result = new int[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            result[i] = ids[i] == -1 ? -1 : found[ids[i]];
+        }
+        return result;
+    }
+
+    //First position at or after from whose element is not less than query,
+    //found by doubling the step from from and then binary searching the
+    //last step. O(log d) where d is the distance moved.
+    @SuppressWarnings("unchecked")
+    private int gallop(Object query, int from) {
+        int low = from;
+        int step = 1;
+        while (low < list.length && list[low].compareTo(query) < 0) {
+            from = low + 1;
+            low = (int) Math.min((long) low + step, list.length);
+            step <<= 1;
+        }
+        //Every element before from is less than query; low is past the end
+        //or not less than query.
+        int high = low;
+        low = from;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (list[mid].compareTo(query) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    //Finds the first position holding obj in O(log n). Elements that
+    //compare equal to obj but are not equals() to it are skipped, so the
+    //result is the same as a linear scan.
+    @SuppressWarnings("unchecked")
+    private int binarySearch(Object obj) {
+        try {
+            int low = 0;
+            int high = list.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (list[mid].compareTo(obj) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < list.length && list[i].compareTo(obj) == 0; i++) {
+                if (list[i].equals(obj)) {
+                    return i;
+                }
+            }
+            return -1;
+        } catch (ClassCastException e) {
+            //obj is not comparable with the elements, so it cannot be equal.
+            return -1;
+        }
+    }
+
+    private void buildHashIndex() {
+        //Keep the load factor at or below 1/2, with a power-of-two capacity
+        //of at least 2 * length.
+        long wanted = Math.max(list.length, 1) * 2L;
+        long capacityBits = Long.highestOneBit(wanted - 1) << 1;
+        if (capacityBits > MAX_HASH_CAPACITY) {
+            throw new IllegalArgumentException("Too many elements for a hash index: " + list.length);
+        }
+        int capacity = (int) capacityBits;
+        slots = new int[capacity];
+        hashes = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < list.length; i++) {
+            int hash = hash(list[i]);
+            int slot = hash & mask;
+            while (slots[slot] != 0) {
+                int other = slots[slot] - 1;
+                if (hashes[slot] == hash && list[other].equals(list[i])) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (slots[slot] == 0) {
+                slots[slot] = i + 1;
+                hashes[slot] = hash;
+            }
+        }
+    }
+
+    private int hashLookup(Object obj) {
+        if (obj == null) {
+            return -1;
+        }
+        int hash = hash(obj);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int position = slots[slot] - 1;
+            if (hashes[slot] == hash && list[position].equals(obj)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    //Spreads the high bits down so power-of-two tables use all of them.
+    private static int hash(Object obj) {
+        int h = obj.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
 }
@@ -0,0 +1,79 @@
+/**
+ * Search over a primitive double[], for numeric tables that would otherwise
+ * be boxed into a Double[]. Elements are matched and ordered the way
+ * Double.equals and Double.compareTo do it, so NaN finds NaN and -0.0 sorts
+ * before 0.0, giving the same answers as an ArraySearch over the boxed
+ * values. Scans go through PrimitiveScans, as in IntArraySearch.
+ */
+public class DoubleArraySearch implements Search {
+
+    private final double[] list;
+    private final boolean sorted;
+
+    public DoubleArraySearch(double[] list) {
+        this.list = list;
+        this.sorted = PrimitiveScans.INSTANCE.isSorted(list);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return list.length == 0;
+    }
+
+    @Override
+    public int size() {
+        return list.length;
+    }
+
+    @Override
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    //Maps a double to a long whose signed order is Double.compare order.
+    static long key(double d) {
+        long bits = Double.doubleToLongBits(d);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    @Override
+    public int index(Object obj) {
+        if (!(obj instanceof Double)) {
+            return -1;
+        }
+        return index(((Double) obj).doubleValue());
+    }
+
+    public int index(double value) {
+        if (sorted) {
+            return binarySearch(value);
+        }
+        double[] a = list;
+        if (value != value) {
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] != a[i]) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        //value is not NaN, so equal raw bits is exactly Double.equals.
+        return PrimitiveScans.INSTANCE.indexOfBits(a, Double.doubleToRawLongBits(value));
+    }
+
+    //First position holding value, or -1.
+    private int binarySearch(double value) {
+        long target = key(value);
+        int low = 0;
+        int high = list.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (key(list[mid]) < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < list.length && key(list[low]) == target ? low : -1;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Search over a sorted array rearranged into Eytzinger (breadth-first)
+ * order: the root of the implicit search tree is at 1 and the children of
+ * k are at 2k and 2k + 1. The first levels of the tree share a few cache
+ * lines and each probe's two children sit next to each other, which can
+ * save some misses on the reference array compared with binary search.
+ * The elements themselves are still separate heap objects, so every
+ * compareTo may miss regardless; measure before relying on a speedup.
+ * The descent picks the child with arithmetic on the comparison result
+ * rather than a branch. Lookups still return positions in the original
+ * sorted array.
+ */
+public class EytzingerSearch<T extends Comparable<? super T>> implements Search {
+
+    private final Comparable[] sorted;
+    //tree[k] is the element at tree node k, from its position position[k]
+    //in the sorted array. Index 0 is unused.
+    private final Comparable[] tree;
+    private final int[] position;
+
+    public EytzingerSearch(ArraySearch<T> source) {
+        if (!source.isSorted()) {
+            throw new IllegalArgumentException("EytzingerSearch needs a sorted ArraySearch");
+        }
+        this.sorted = source.elements();
+        this.tree = new Comparable[sorted.length + 1];
+        this.position = new int[sorted.length + 1];
+        build(0, 1);
+    }
+
+    //Fills the subtree rooted at node k by an in-order walk, taking sorted
+    //elements from next onward. Returns the next unused sorted position.
+    private int build(int next, int k) {
+        if (k <= sorted.length) {
+            next = build(next, 2 * k);
+            tree[k] = sorted[next];
+            position[k] = next++;
+            next = build(next, 2 * k + 1);
+        }
+        return next;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return sorted.length == 0;
+    }
+
+    @Override
+    public int size() {
+        return sorted.length;
+    }
+
+    @Override
+    public boolean isSorted() {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int index(Object obj) {
+        if (obj == null) {
+            return -1;
+        }
+        try {
+            int n = sorted.length;
+            int k = 1;
+            while (k <= n) {
+                //Go right (2k + 1) while the node is less than obj.
+                k = 2 * k + (tree[k].compareTo(obj) >>> 31);
+            }
+            //Undo the right turns taken after the last left turn; that left
+            //turn was at the first element not less than obj.
+            k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+            if (k == 0) {
+                return -1;
+            }
+            //Same equals() check as ArraySearch, over the run of elements
+            //that compare equal to obj.
+            for (int i = position[k]; i < n && sorted[i].compareTo(obj) == 0; i++) {
+                if (sorted[i].equals(obj)) {
+                    return i;
+                }
+            }
+            return -1;
+        } catch (ClassCastException e) {
+            return -1;
+        }
+    }
+}
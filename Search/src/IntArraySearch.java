@@ -0,0 +1,62 @@
+/**
+ * Search over a primitive int[], for numeric tables that would otherwise
+ * be boxed into an Integer[]. Unsorted arrays are scanned, and isSorted() is
+ * computed, with PrimitiveScans, which uses SIMD instructions when the
+ * Vector API is available. As in ArraySearch, sortedness is computed once
+ * and sorted arrays are searched with binary search.
+ */
+public class IntArraySearch implements Search {
+
+    private final int[] list;
+    private final boolean sorted;
+
+    public IntArraySearch(int[] list) {
+        this.list = list;
+        this.sorted = PrimitiveScans.INSTANCE.isSorted(list);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return list.length == 0;
+    }
+
+    @Override
+    public int size() {
+        return list.length;
+    }
+
+    @Override
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    @Override
+    public int index(Object obj) {
+        if (!(obj instanceof Integer)) {
+            return -1;
+        }
+        return index(((Integer) obj).intValue());
+    }
+
+    public int index(int value) {
+        if (sorted) {
+            return binarySearch(value);
+        }
+        return PrimitiveScans.INSTANCE.indexOf(list, value);
+    }
+
+    //First position holding value, or -1.
+    private int binarySearch(int value) {
+        int low = 0;
+        int high = list.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (list[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < list.length && list[low] == value ? low : -1;
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Search over a primitive long[], for numeric tables that would otherwise
+ * be boxed into a Long[]. Unsorted arrays are scanned, and isSorted() is
+ * computed, with PrimitiveScans, which uses SIMD instructions when the
+ * Vector API is available. As in ArraySearch, sortedness is computed once
+ * and sorted arrays are searched with binary search.
+ */
+public class LongArraySearch implements Search {
+
+    private final long[] list;
+    private final boolean sorted;
+
+    public LongArraySearch(long[] list) {
+        this.list = list;
+        this.sorted = PrimitiveScans.INSTANCE.isSorted(list);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return list.length == 0;
+    }
+
+    @Override
+    public int size() {
+        return list.length;
+    }
+
+    @Override
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    @Override
+    public int index(Object obj) {
+        if (!(obj instanceof Long)) {
+            return -1;
+        }
+        return index(((Long) obj).longValue());
+    }
+
+    public int index(long value) {
+        if (sorted) {
+            return binarySearch(value);
+        }
+        return PrimitiveScans.INSTANCE.indexOf(list, value);
+    }
+
+    //First position holding value, or -1.
+    private int binarySearch(long value) {
+        int low = 0;
+        int high = list.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (list[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < list.length && list[low] == value ? low : -1;
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Linear scans over primitive arrays, shared by IntArraySearch,
+ * LongArraySearch and DoubleArraySearch.
+ *
+ * INSTANCE is the SIMD implementation in vector/VectorScans when that
+ * class is on the classpath and the JVM was started with
+ * --add-modules jdk.incubator.vector, and ScalarScans otherwise. Starting
+ * with -Dsearch.vector=false forces the scalar version.
+ */
+interface PrimitiveScans {
+
+    PrimitiveScans INSTANCE = load();
+
+    //First position holding value, or -1.
+    int indexOf(int[] a, int value);
+
+    int indexOf(long[] a, long value);
+
+    //First position whose raw bits (Double.doubleToRawLongBits) are bits.
+    int indexOfBits(double[] a, long bits);
+
+    //Whether a is in ascending order; doubles in Double.compare order.
+    boolean isSorted(int[] a);
+
+    boolean isSorted(long[] a);
+
+    boolean isSorted(double[] a);
+
+    private static PrimitiveScans load() {
+        if (!Boolean.parseBoolean(System.getProperty("search.vector", "true"))) {
+            return new ScalarScans();
+        }
+        try {
+            return (PrimitiveScans) Class.forName("VectorScans").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            //Not on the classpath, or jdk.incubator.vector is not available.
+            return new ScalarScans();
+        }
+    }
+}
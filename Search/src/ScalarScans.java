@@ -0,0 +1,63 @@
+//Plain loops, used when the Vector API is not available.
+class ScalarScans implements PrimitiveScans {
+
+    @Override
+    public int indexOf(int[] a, int value) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int indexOf(long[] a, long value) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int indexOfBits(double[] a, long bits) {
+        for (int i = 0; i < a.length; i++) {
+            if (Double.doubleToRawLongBits(a[i]) == bits) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isSorted(int[] a) {
+        for (int i = 0; i < a.length - 1; i++) {
+            if (a[i] > a[i + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isSorted(long[] a) {
+        for (int i = 0; i < a.length - 1; i++) {
+            if (a[i] > a[i + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isSorted(double[] a) {
+        for (int i = 0; i < a.length - 1; i++) {
+            if (DoubleArraySearch.key(a[i]) > DoubleArraySearch.key(a[i + 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -30,4 +30,17 @@ public interface Search<T extends Comparable<? super T>> {
      * @return the location of the element in the list starting at 0 or return -1 if not present
      */
     int index(Object obj);
+
+    /**
+     *
+     * @param queries objects to be searched for
+     * @return for each query, the location of the element in the list starting at 0 or -1 if not present
+     */
+    default int[] indexAll(Object[] queries) {
+        int[] result = new int[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            result[i] = index(queries[i]);
+        }
+        return result;
+    }
 }
\ No newline at end of file
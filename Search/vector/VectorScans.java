@@ -0,0 +1,140 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD version of PrimitiveScans on the incubating Vector API. Each step
+ * compares a whole vector of elements, and only a tail shorter than one
+ * vector is scanned element by element.
+ *
+ * Compile this directory alongside src/ with
+ * --add-modules jdk.incubator.vector, and start the JVM with the same
+ * flag. PrimitiveScans loads this class reflectively and falls back to
+ * ScalarScans when either is missing.
+ */
+class VectorScans implements PrimitiveScans {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public int indexOf(int[] a, int value) {
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            VectorMask<Integer> hit = IntVector.fromArray(INTS, a, i).eq(value);
+            if (hit.anyTrue()) {
+                return i + hit.firstTrue();
+            }
+        }
+        for (; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int indexOf(long[] a, long value) {
+        int i = 0;
+        for (int bound = LONGS.loopBound(a.length); i < bound; i += LONGS.length()) {
+            VectorMask<Long> hit = LongVector.fromArray(LONGS, a, i).eq(value);
+            if (hit.anyTrue()) {
+                return i + hit.firstTrue();
+            }
+        }
+        for (; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int indexOfBits(double[] a, long bits) {
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            //Compared as raw bits, so -0.0 does not match 0.0.
+            VectorMask<Long> hit = DoubleVector.fromArray(DOUBLES, a, i).viewAsIntegralLanes().eq(bits);
+            if (hit.anyTrue()) {
+                return i + hit.firstTrue();
+            }
+        }
+        for (; i < a.length; i++) {
+            if (Double.doubleToRawLongBits(a[i]) == bits) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //Each step compares a[i .. i + n) with a[i + 1 .. i + n + 1).
+    @Override
+    public boolean isSorted(int[] a) {
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length - 1); i < bound; i += INTS.length()) {
+            IntVector left = IntVector.fromArray(INTS, a, i);
+            IntVector right = IntVector.fromArray(INTS, a, i + 1);
+            if (left.compare(VectorOperators.GT, right).anyTrue()) {
+                return false;
+            }
+        }
+        for (; i < a.length - 1; i++) {
+            if (a[i] > a[i + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isSorted(long[] a) {
+        int i = 0;
+        for (int bound = LONGS.loopBound(a.length - 1); i < bound; i += LONGS.length()) {
+            LongVector left = LongVector.fromArray(LONGS, a, i);
+            LongVector right = LongVector.fromArray(LONGS, a, i + 1);
+            if (left.compare(VectorOperators.GT, right).anyTrue()) {
+                return false;
+            }
+        }
+        for (; i < a.length - 1; i++) {
+            if (a[i] > a[i + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isSorted(double[] a) {
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length - 1); i < bound; i += DOUBLES.length()) {
+            LongVector left = key(DoubleVector.fromArray(DOUBLES, a, i));
+            LongVector right = key(DoubleVector.fromArray(DOUBLES, a, i + 1));
+            if (left.compare(VectorOperators.GT, right).anyTrue()) {
+                return false;
+            }
+        }
+        for (; i < a.length - 1; i++) {
+            if (DoubleArraySearch.key(a[i]) > DoubleArraySearch.key(a[i + 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Lane-wise DoubleArraySearch.key: signed order of the result is
+    //Double.compare order. NaNs are first collapsed to the canonical NaN,
+    //as Double.doubleToLongBits does.
+    private static LongVector key(DoubleVector v) {
+        VectorMask<Long> nan = v.test(VectorOperators.IS_NAN).cast(LONGS);
+        LongVector bits = v.viewAsIntegralLanes().blend(0x7ff8000000000000L, nan);
+        return bits.lanewise(VectorOperators.XOR,
+                bits.lanewise(VectorOperators.ASHR, 63).lanewise(VectorOperators.AND, Long.MAX_VALUE));
+    }
+}
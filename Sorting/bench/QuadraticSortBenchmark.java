@@ -0,0 +1,72 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The O(n^2) sorts, benchmarked like SortBenchmark but only up to 10K
+ * samples, since at a million or more they would not finish.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuadraticSortBenchmark {
+
+    @Param({"BubbleSort", "InsertionSort"})
+    public String algorithm;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"random", "sorted", "reverse", "fewUnique"})
+    public String distribution;
+
+    @Param({"false", "true"})
+    public boolean columnar;
+
+    private File input;
+    private Sort sort;
+    private Sample[] template;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException, ReflectiveOperationException {
+        input = SortBenchmark.writeSamples(size, distribution);
+        sort = SortBenchmark.newSort(algorithm, input, columnar);
+        template = sort.samples.toArray(new Sample[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteInput() {
+        input.delete();
+    }
+
+    @Benchmark
+    public Sort sort() {
+        SortBenchmark.restore(sort, template);
+        sort.sort();
+        return sort;
+    }
+
+    //Baseline for the restore included in sort().
+    @Benchmark
+    public Sort restoreOnly() {
+        SortBenchmark.restore(sort, template);
+        return sort;
+    }
+}
@@ -0,0 +1,156 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the Sort subclasses over 1K to 10M samples in four
+ * distributions. The input is loaded once per trial and copied aside.
+ * Each sort() invocation first puts the samples back in their loaded
+ * order by copying from that copy into the existing storage, then sorts.
+ * The restore allocates nothing, so the GC profiler's allocation figures
+ * are those of sort() alone. Its O(n) time is reported separately by
+ * restoreOnly(), to subtract from sort() where it matters.
+ *
+ * Needs jmh-core and jmh-generator-annprocess on the classpath, with this
+ * directory compiled alongside src/. Run main() to get throughput plus
+ * allocation rates from the GC profiler for every benchmark here and in
+ * QuadraticSortBenchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class SortBenchmark {
+
+    @Param({"SelectionSort", "MergeSort", "RadixSort", "TimSort"})
+    public String algorithm;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"random", "sorted", "reverse", "fewUnique"})
+    public String distribution;
+
+    @Param({"false", "true"})
+    public boolean columnar;
+
+    private File input;
+    private Sort sort;
+    private Sample[] template;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException, ReflectiveOperationException {
+        input = writeSamples(size, distribution);
+        sort = newSort(algorithm, input, columnar);
+        template = sort.samples.toArray(new Sample[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteInput() {
+        input.delete();
+    }
+
+    @Benchmark
+    public Sort sort() {
+        restore(sort, template);
+        sort.sort();
+        return sort;
+    }
+
+    //Baseline for the restore included in sort().
+    @Benchmark
+    public Sort restoreOnly() {
+        restore(sort, template);
+        return sort;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SortBenchmark.class.getSimpleName())
+                .include(QuadraticSortBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    //Puts sort's samples back in the order of template without allocating:
+    //columns are overwritten in place, and lists get the original Sample
+    //objects back.
+    static void restore(Sort sort, Sample[] template) {
+        sort.samplesChanged();
+        if (sort.samples instanceof SampleColumns) {
+            SampleColumns columns = (SampleColumns) sort.samples;
+            int[] ids = columns.ids();
+            double[] measurements = columns.measurements();
+            for (int i = 0; i < template.length; i++) {
+                ids[i] = template[i].id;
+                measurements[i] = template[i].measurement;
+            }
+            return;
+        }
+        for (int i = 0; i < template.length; i++) {
+            sort.samples.set(i, template[i]);
+        }
+    }
+
+    static Sort newSort(String algorithm, File input, boolean columnar) throws ReflectiveOperationException {
+        return (Sort) Class.forName(algorithm)
+                .getConstructor(String.class, boolean.class)
+                .newInstance(input.getPath(), columnar);
+    }
+
+    //Writes size "id measurement" lines. "sorted" is already in the
+    //descending order sort() produces and "reverse" is ascending.
+    static File writeSamples(int size, String distribution) throws IOException {
+        File file = File.createTempFile("samples-" + distribution + "-" + size, ".txt");
+        Random random = new Random(416);
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+            for (int i = 0; i < size; i++) {
+                double measurement;
+                switch (distribution) {
+                    case "random":
+                        measurement = random.nextDouble() * 1000;
+                        break;
+                    case "sorted":
+                        measurement = (size - i) / 100.0;
+                        break;
+                    case "reverse":
+                        measurement = i / 100.0;
+                        break;
+                    case "fewUnique":
+                        measurement = random.nextInt(4);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown distribution: " + distribution);
+                }
+                out.write(i + " " + measurement);
+                out.newLine();
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary format for samples, used to pass sorted results between
+ * pipeline stages without formatting and reparsing text. A file is a plain
+ * sequence of fixed-width 12-byte records: the id as a big-endian int
+ * followed by the measurement as a big-endian IEEE 754 double. This is the
+ * same layout DataOutputStream.writeInt/writeDouble produce.
+ */
+public class BinarySamples {
+    public static final int RECORD_SIZE = 12;
+
+    private static final int BUFFER_RECORDS = 4096;
+
+    private BinarySamples() {
+    }
+
+    public static SampleColumns read(String fileName) throws IOException {
+        try (InputStream in = new FileInputStream(fileName)) {
+            return read(in);
+        }
+    }
+
+    //Reads records until the end of the stream.
+    public static SampleColumns read(InputStream in) throws IOException {
+        SampleColumns columns = new SampleColumns();
+        RecordReader reader = new RecordReader(in);
+        while (reader.next()) {
+            columns.add(reader.id(), reader.measurement());
+        }
+        columns.trimToSize();
+        return columns;
+    }
+
+    //Writes records through a reused buffer. flush() pushes buffered
+    //records to the stream; close() also closes the stream.
+    public static class RecordWriter implements Closeable {
+        private final OutputStream out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * BUFFER_RECORDS);
+
+        public RecordWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        public void write(int id, double measurement) throws IOException {
+            if (buffer.remaining() < RECORD_SIZE)
+                drain();
+            buffer.putInt(id);
+            buffer.putDouble(measurement);
+        }
+
+        public void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                out.close();
+            }
+        }
+
+        private void drain() throws IOException {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+
+    //Reads records one at a time: call next(), then id() and measurement().
+    public static class RecordReader implements Closeable {
+        private final InputStream in;
+        private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * BUFFER_RECORDS);
+        private int id;
+        private double measurement;
+
+        public RecordReader(InputStream in) {
+            this.in = in;
+            buffer.limit(0);
+        }
+
+        //Advances to the next record, returning false at the end of the
+        //stream. A partial record at the end is an error.
+        public boolean next() throws IOException {
+            if (buffer.remaining() < RECORD_SIZE && !fill())
+                return false;
+            id = buffer.getInt();
+            measurement = buffer.getDouble();
+            return true;
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public double measurement() {
+            return measurement;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private boolean fill() throws IOException {
+            buffer.compact();
+            try {
+                while (buffer.position() < RECORD_SIZE) {
+                    int read = in.read(buffer.array(), buffer.position(), buffer.remaining());
+                    if (read < 0)
+                        break;
+                    buffer.position(buffer.position() + read);
+                }
+            } finally {
+                buffer.flip();
+            }
+            if (buffer.remaining() == 0)
+                return false;
+            if (buffer.remaining() < RECORD_SIZE)
+                throw new EOFException("Truncated sample record: " + buffer.remaining() + " trailing bytes");
+            return true;
+        }
+    }
+}
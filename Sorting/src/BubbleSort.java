@@ -6,16 +6,29 @@ public class BubbleSort extends Sort {
         super(fileName);
     }
 
+    public BubbleSort(String fileName, boolean columnar) {
+        super(fileName, columnar);
+    }
+
     @Override
     public void sort() {
-        for (int i = 0; i < samples.size() - 1; i++) {
-            for (int j = 0; j < samples.size() - i - 1; j++) {
-                if (samples.get(j).measurement < samples.get(j + 1).measurement) {
-                    Sample temp = samples.get(j);
-                    samples.set(j, samples.get(j + 1));
-                    samples.set(j + 1, temp);
+        double[] keys = sortKeys();
+        int[] payload = sortPayload();
+        int n = samples.size();
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = 0; j < n - i - 1; j++) {
+                stats.compare();
+                if (keys[j] < keys[j + 1]) {
+                    double key = keys[j];
+                    keys[j] = keys[j + 1];
+                    keys[j + 1] = key;
+                    int value = payload[j];
+                    payload[j] = payload[j + 1];
+                    payload[j + 1] = value;
+                    stats.swap();
                 }
             }
         }
+        applySorted(keys, payload);
     }
 }
@@ -0,0 +1,191 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts sample files that are too large to load into a Sort. The input is
+ * read in chunks of at most chunkSize samples; each chunk is sorted in
+ * descending order of measurement and spilled to a temporary run file in
+ * the BinarySamples record format, and the runs are then merged with a
+ * heap, at most fanIn at a time, into the output file. Memory use depends only on chunkSize and fanIn, not on the
+ * size of the input. Equal measurements keep their input order.
+ */
+public class ExternalSort {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    public static final int DEFAULT_FAN_IN = 64;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final int chunkSize;
+    private final int fanIn;
+
+    public ExternalSort() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_FAN_IN);
+    }
+
+    public ExternalSort(int chunkSize, int fanIn) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        if (fanIn < 2)
+            throw new IllegalArgumentException("fanIn must be at least 2: " + fanIn);
+        this.chunkSize = chunkSize;
+        this.fanIn = fanIn;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ExternalSort <input> <output> [chunkSize]");
+            return;
+        }
+        int chunkSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CHUNK_SIZE;
+        new ExternalSort(chunkSize, DEFAULT_FAN_IN).sort(args[0], args[1]);
+    }
+
+    //Sorts the "id measurement" lines of inputFile into outputFile.
+    public void sort(String inputFile, String outputFile) throws IOException {
+        List<File> runs = new ArrayList<>();
+        try {
+            spillRuns(inputFile, runs);
+            //Merge groups of runs until few enough remain for the last pass.
+            while (runs.size() > fanIn) {
+                List<File> merged = new ArrayList<>();
+                try {
+                    for (int i = 0; i < runs.size(); i += fanIn) {
+                        List<File> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                        File run = File.createTempFile("samples", ".run");
+                        merged.add(run);
+                        try (BinarySamples.RecordWriter out = openRun(run)) {
+                            merge(group, out::write);
+                        }
+                    }
+                } catch (IOException e) {
+                    deleteAll(merged);
+                    throw e;
+                }
+                deleteAll(runs);
+                runs = merged;
+            }
+            try (BufferedWriter out = new BufferedWriter(new FileWriter(outputFile), BUFFER_SIZE)) {
+                merge(runs, (id, measurement) -> {
+                    out.write(Integer.toString(id));
+                    out.write(' ');
+                    out.write(Double.toString(measurement));
+                    out.newLine();
+                });
+            }
+        } finally {
+            deleteAll(runs);
+        }
+    }
+
+    private void spillRuns(String inputFile, List<File> runs) throws IOException {
+        SampleColumns chunk = new SampleColumns(chunkSize);
+        try {
+            SampleLoader.load(inputFile, (id, measurement) -> {
+                chunk.add(id, measurement);
+                if (chunk.size() == chunkSize) {
+                    runs.add(spill(chunk));
+                    chunk.clear();
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (chunk.size() > 0 || runs.isEmpty())
+            runs.add(spill(chunk));
+    }
+
+    private static File spill(SampleColumns chunk) {
+        int[] ids = chunk.ids();
+        double[] measurements = chunk.measurements();
+        int n = chunk.size();
+        MergeSort.sort(measurements, ids, 0, n);
+        try {
+            File run = File.createTempFile("samples", ".run");
+            try (BinarySamples.RecordWriter out = openRun(run)) {
+                for (int i = 0; i < n; i++) {
+                    out.write(ids[i], measurements[i]);
+                }
+            }
+            return run;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Output {
+        void write(int id, double measurement) throws IOException;
+    }
+
+    //k-way merge of sorted runs. The heap is ordered by measurement,
+    //descending, and then by run position so ties stay stable.
+    private static void merge(List<File> runs, Output out) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>(Math.max(runs.size(), 1), (a, b) -> {
+            int c = Double.compare(b.measurement, a.measurement);
+            return c != 0 ? c : Integer.compare(a.order, b.order);
+        });
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                RunReader reader = new RunReader(runs.get(i), i);
+                if (reader.next())
+                    heap.add(reader);
+                else
+                    reader.close();
+            }
+            while (!heap.isEmpty()) {
+                RunReader reader = heap.poll();
+                out.write(reader.id, reader.measurement);
+                if (reader.next())
+                    heap.add(reader);
+                else
+                    reader.close();
+            }
+        } finally {
+            for (RunReader reader : heap) {
+                reader.close();
+            }
+        }
+    }
+
+    private static BinarySamples.RecordWriter openRun(File run) throws IOException {
+        return new BinarySamples.RecordWriter(new FileOutputStream(run));
+    }
+
+    private static void deleteAll(List<File> files) {
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    private static class RunReader {
+        private final BinarySamples.RecordReader in;
+        private final int order;
+        private int id;
+        private double measurement;
+
+        RunReader(File run, int order) throws IOException {
+            this.in = new BinarySamples.RecordReader(new FileInputStream(run));
+            this.order = order;
+        }
+
+        //Advances to the next record, returning false at the end of the run.
+        boolean next() throws IOException {
+            if (!in.next())
+                return false;
+            id = in.id();
+            measurement = in.measurement();
+            return true;
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+}
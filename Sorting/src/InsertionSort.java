@@ -6,16 +6,32 @@ public class InsertionSort extends Sort {
         super(fileName);
     }
 
+    public InsertionSort(String fileName, boolean columnar) {
+        super(fileName, columnar);
+    }
+
     @Override
     public void sort() {
-        for (int i = 1; i < samples.size(); i++) {
-            Sample key = samples.get(i);
+        double[] keys = sortKeys();
+        int[] payload = sortPayload();
+        int n = samples.size();
+        for (int i = 1; i < n; i++) {
+            double key = keys[i];
+            int value = payload[i];
             int j = i - 1;
-            while (j >= 0 && samples.get(j).measurement < key.measurement) {
-                samples.set(j + 1, samples.get(j));
+            while (j >= 0 && keys[j] < key) {
+                stats.compare();
+                keys[j + 1] = keys[j];
+                payload[j + 1] = payload[j];
+                stats.move(1);
                 j--;
             }
-            samples.set(j + 1, key);
+            if (j >= 0)
+                stats.compare();
+            keys[j + 1] = key;
+            payload[j + 1] = value;
+            stats.move(1);
         }
+        applySorted(keys, payload);
     }
 }
@@ -1,11 +1,153 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 public class MergeSort extends Sort {
 
+    //Ranges at or below CUTOFF are merge sorted sequentially instead of
+    //being split into parallel tasks, and ranges at or below
+    //INSERTION_CUTOFF are insertion sorted.
+    private static final int CUTOFF = 8192;
+    private static final int INSERTION_CUTOFF = 32;
+    //Shared by callers that keep no stats of their own, so they do not
+    //create counters on every call. Nothing reads its counts.
+    private static final SortStats UNTRACKED = new SortStats();
+
     public MergeSort(String fileName) {
         super(fileName);
     }
 
+    public MergeSort(String fileName, boolean columnar) {
+        super(fileName, columnar);
+    }
+
     @Override
     public void sort() {
+        int n = samples.size();
+        if (n < 2)
+            return;
+        double[] keys = sortKeys();
+        int[] payload = sortPayload();
+        sort(keys, payload, 0, n, stats);
+        applySorted(keys, payload);
+    }
+
+    //Stable parallel sort of keys[lo, hi) in descending order, moving
+    //payload entries along with their keys.
+    static void sort(double[] keys, int[] payload, int lo, int hi) {
+        sort(keys, payload, lo, hi, UNTRACKED);
+    }
+
+    static void sort(double[] keys, int[] payload, int lo, int hi, SortStats stats) {
+        if (hi - lo < 2)
+            return;
+        //One scratch buffer for the whole sort, covering only [lo, hi):
+        //position i of the input is at i - base in the scratch.
+        double[] keyScratch = new double[hi - lo];
+        int[] payloadScratch = new int[hi - lo];
+        if (hi - lo <= CUTOFF) {
+            sequentialSort(keys, payload, keyScratch, payloadScratch, lo, lo, hi, stats);
+        } else {
+            ForkJoinPool.commonPool().invoke(
+                    new SortTask(keys, payload, keyScratch, payloadScratch, lo, lo, hi, stats));
+        }
+    }
+
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final double[] keys;
+        private final int[] payload;
+        private final double[] keyScratch;
+        private final int[] payloadScratch;
+        private final int base;
+        private final int lo;
+        private final int hi;
+        private final SortStats stats;
+
+        SortTask(double[] keys, int[] payload, double[] keyScratch, int[] payloadScratch, int base, int lo,
+                 int hi, SortStats stats) {
+            this.keys = keys;
+            this.payload = payload;
+            this.keyScratch = keyScratch;
+            this.payloadScratch = payloadScratch;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= CUTOFF) {
+                sequentialSort(keys, payload, keyScratch, payloadScratch, base, lo, hi, stats);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(keys, payload, keyScratch, payloadScratch, base, lo, mid, stats),
+                    new SortTask(keys, payload, keyScratch, payloadScratch, base, mid, hi, stats));
+            merge(keys, payload, keyScratch, payloadScratch, base, lo, mid, hi, stats);
+        }
+    }
+
+    private static void sequentialSort(double[] keys, int[] payload, double[] keyScratch,
+                                       int[] payloadScratch, int base, int lo, int hi, SortStats stats) {
+        if (hi - lo <= INSERTION_CUTOFF) {
+            insertionSort(keys, payload, lo, hi, stats);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sequentialSort(keys, payload, keyScratch, payloadScratch, base, lo, mid, stats);
+        sequentialSort(keys, payload, keyScratch, payloadScratch, base, mid, hi, stats);
+        merge(keys, payload, keyScratch, payloadScratch, base, lo, mid, hi, stats);
+    }
+
+    private static void insertionSort(double[] keys, int[] payload, int lo, int hi, SortStats stats) {
+        for (int i = lo + 1; i < hi; i++) {
+            double key = keys[i];
+            int value = payload[i];
+            int j = i - 1;
+            while (j >= lo && keys[j] < key) {
+                stats.compare();
+                keys[j + 1] = keys[j];
+                payload[j + 1] = payload[j];
+                stats.move(1);
+                j--;
+            }
+            if (j >= lo)
+                stats.compare();
+            keys[j + 1] = key;
+            payload[j + 1] = value;
+            stats.move(1);
+        }
+    }
 
+    //Merges the sorted runs [lo, mid) and [mid, hi). Ties are taken
+    //from the left run first so the sort is stable. Scratch index 0 is
+    //input position base.
+    private static void merge(double[] keys, int[] payload, double[] keyScratch,
+                              int[] payloadScratch, int base, int lo, int mid, int hi, SortStats stats) {
+        //Already in order, nothing to merge.
+        stats.compare();
+        if (keys[mid - 1] >= keys[mid])
+            return;
+        System.arraycopy(keys, lo, keyScratch, lo - base, hi - lo);
+        System.arraycopy(payload, lo, payloadScratch, lo - base, hi - lo);
+        stats.move(hi - lo);
+        //i and j index the scratch.
+        int i = lo - base;
+        int j = mid - base;
+        int leftEnd = j;
+        int rightEnd = hi - base;
+        for (int k = lo; k < hi; k++) {
+            if (i < leftEnd && j < rightEnd)
+                stats.compare();
+            if (i == leftEnd || (j < rightEnd && keyScratch[j] > keyScratch[i])) {
+                keys[k] = keyScratch[j];
+                payload[k] = payloadScratch[j++];
+            } else {
+                keys[k] = keyScratch[i];
+                payload[k] = payloadScratch[i++];
+            }
+        }
+        stats.move(hi - lo);
     }
 }
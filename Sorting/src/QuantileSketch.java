@@ -0,0 +1,189 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Approximate percentiles of a stream of measurements in bounded memory,
+ * using a KLL sketch. Values live in a stack of compactors; a value at
+ * level h stands for 2^h measurements. When the sketch is full the lowest
+ * level over its capacity is sorted and every other value, starting at a
+ * random offset, is promoted to the next level while the rest are dropped.
+ *
+ * The sketch keeps at most about 3k values however many measurements it
+ * sees, and the rank error of a percentile is roughly 1.7 / k (about 1% for
+ * the default k = 200). add() is amortized O(1); percentile() sorts the
+ * retained values. Sketches are not thread-safe, but per-thread sketches
+ * can be combined with merge().
+ */
+public class QuantileSketch {
+    public static final int DEFAULT_K = 200;
+
+    //Each level may hold about 2/3 as much as the one above it.
+    private static final double DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 2;
+
+    private final int k;
+    private final SplittableRandom random;
+    private double[][] levels = new double[0][];
+    private int[] sizes = new int[0];
+    private int retained;
+    private int capacity;
+    private long count;
+    private double min;
+    private double max;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        this(k, new SplittableRandom());
+    }
+
+    QuantileSketch(int k, SplittableRandom random) {
+        if (k < MIN_LEVEL_CAPACITY)
+            throw new IllegalArgumentException("k must be at least " + MIN_LEVEL_CAPACITY + ": " + k);
+        this.k = k;
+        this.random = random;
+        addLevel();
+    }
+
+    public void add(Sample sample) {
+        add(sample.measurement);
+    }
+
+    public void add(double measurement) {
+        if (count == 0 || measurement < min)
+            min = measurement;
+        if (count == 0 || measurement > max)
+            max = measurement;
+        count++;
+        append(0, measurement);
+        if (retained >= capacity)
+            compress();
+    }
+
+    //Folds other into this sketch. other is left unchanged.
+    public void merge(QuantileSketch other) {
+        if (other.count == 0)
+            return;
+        while (levels.length < other.levels.length)
+            addLevel();
+        //Snapshot the sizes, since other may be this sketch.
+        int[] otherSizes = other.sizes.clone();
+        for (int h = 0; h < otherSizes.length; h++) {
+            for (int i = 0; i < otherSizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        if (count == 0 || other.min < min)
+            min = other.min;
+        if (count == 0 || other.max > max)
+            max = other.max;
+        count += other.count;
+        while (retained >= capacity)
+            compress();
+    }
+
+    //Number of measurements seen, including merged sketches.
+    public long count() {
+        return count;
+    }
+
+    //Number of values currently stored.
+    public int retained() {
+        return retained;
+    }
+
+    //Approximate nearest-rank p-th percentile (0 < p <= 100), with the same
+    //meaning as Sort.percentile(p). percentile(100) is exact.
+    public double percentile(double p) {
+        if (!(p > 0 && p <= 100))
+            throw new IllegalArgumentException("Percentile must be in (0, 100]: " + p);
+        if (count == 0)
+            throw new NoSuchElementException("No measurements");
+        if (p == 100)
+            return max;
+        double[] values = new double[retained];
+        int[] levelOf = new int[retained];
+        int at = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[at] = levels[h][i];
+                levelOf[at++] = h;
+            }
+        }
+        //Sorted descending, with each value's level carried along.
+        MergeSort.sort(values, levelOf, 0, retained);
+        long target = Selection.nearestRank(p, count);
+        long seen = 0;
+        for (int i = retained - 1; i >= 0; i--) {
+            seen += 1L << levelOf[i];
+            if (seen >= target)
+                return values[i];
+        }
+        return max;
+    }
+
+    public double median() {
+        return percentile(50);
+    }
+
+    public double min() {
+        if (count == 0)
+            throw new NoSuchElementException("No measurements");
+        return min;
+    }
+
+    public double max() {
+        if (count == 0)
+            throw new NoSuchElementException("No measurements");
+        return max;
+    }
+
+    //Compacts the lowest level that is at or over its capacity.
+    private void compress() {
+        for (int h = 0; h < levels.length; h++) {
+            if (sizes[h] < levelCapacity(h))
+                continue;
+            if (h + 1 == levels.length)
+                addLevel();
+            double[] level = levels[h];
+            int size = sizes[h];
+            Arrays.sort(level, 0, size);
+            //With an odd count the smallest value stays at this level.
+            int start = size % 2;
+            int offset = random.nextInt(2);
+            for (int i = start + offset; i < size; i += 2) {
+                append(h + 1, level[i]);
+            }
+            retained -= size - start;
+            sizes[h] = start;
+            return;
+        }
+    }
+
+    //Capacity of level h: k at the top, shrinking by DECAY per level down.
+    private int levelCapacity(int h) {
+        int depth = levels.length - h - 1;
+        return Math.max((int) Math.ceil(k * Math.pow(DECAY, depth)), MIN_LEVEL_CAPACITY);
+    }
+
+    private void addLevel() {
+        int h = levels.length;
+        levels = Arrays.copyOf(levels, h + 1);
+        sizes = Arrays.copyOf(sizes, h + 1);
+        levels[h] = new double[MIN_LEVEL_CAPACITY];
+        capacity = 0;
+        for (int i = 0; i <= h; i++) {
+            capacity += levelCapacity(i);
+        }
+    }
+
+    private void append(int h, double value) {
+        if (sizes[h] == levels[h].length)
+            levels[h] = Arrays.copyOf(levels[h], sizes[h] * 2);
+        levels[h][sizes[h]++] = value;
+        retained++;
+    }
+}
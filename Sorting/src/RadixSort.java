@@ -0,0 +1,86 @@
+public class RadixSort extends Sort {
+
+    private static final int BITS = 8;
+    private static final int RADIX = 1 << BITS;
+    private static final int PASSES = Long.SIZE / BITS;
+
+    public RadixSort(String fileName) {
+        super(fileName);
+    }
+
+    public RadixSort(String fileName, boolean columnar) {
+        super(fileName, columnar);
+    }
+
+    //Stable LSD radix sort on the bits of each measurement, one byte per
+    //pass. Runs in linear time; passes in which every key has the same
+    //byte are skipped.
+    @Override
+    public void sort() {
+        int n = samples.size();
+        if (n < 2)
+            return;
+        double[] measurements = sortKeys();
+        int[] payload = sortPayload();
+
+        long[] keys = new long[n];
+        int[][] counts = new int[PASSES][RADIX];
+        for (int i = 0; i < n; i++) {
+            long key = descendingKey(measurements[i]);
+            keys[i] = key;
+            for (int pass = 0; pass < PASSES; pass++) {
+                counts[pass][(int) (key >>> (pass * BITS)) & (RADIX - 1)]++;
+            }
+        }
+        stats.access(2L * n);
+
+        long[] keyBuffer = new long[n];
+        int[] payloadBuffer = new int[n];
+        for (int pass = 0; pass < PASSES; pass++) {
+            int[] count = counts[pass];
+            int shift = pass * BITS;
+            if (count[(int) (keys[0] >>> shift) & (RADIX - 1)] == n)
+                continue;
+            //Turn the counts into starting offsets for each bucket.
+            int offset = 0;
+            for (int b = 0; b < RADIX; b++) {
+                int c = count[b];
+                count[b] = offset;
+                offset += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int b = (int) (keys[i] >>> shift) & (RADIX - 1);
+                int to = count[b]++;
+                keyBuffer[to] = keys[i];
+                payloadBuffer[to] = payload[i];
+            }
+            stats.move(n);
+            long[] swapKeys = keys;
+            keys = keyBuffer;
+            keyBuffer = swapKeys;
+            int[] swapPayload = payload;
+            payload = payloadBuffer;
+            payloadBuffer = swapPayload;
+        }
+
+        for (int i = 0; i < n; i++) {
+            measurements[i] = fromDescendingKey(keys[i]);
+        }
+        applySorted(measurements, payload);
+    }
+
+    //Maps a double to a long whose unsigned order is the reverse of the
+    //numeric order of the doubles. Flipping all bits of a negative double,
+    //or only the sign bit of a positive one, gives an ascending unsigned
+    //key; complementing that makes it descending.
+    static long descendingKey(double d) {
+        long bits = Double.doubleToLongBits(d);
+        return ~(bits ^ ((bits >> 63) | Long.MIN_VALUE));
+    }
+
+    static double fromDescendingKey(long key) {
+        long ascending = ~key;
+        long bits = ascending ^ ((~ascending >> 63) | Long.MIN_VALUE);
+        return Double.longBitsToDouble(bits);
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Exact running median of a stream of measurements. The lower half is kept
+ * in a max-heap and the upper half in a min-heap, both plain double arrays,
+ * so add() is O(log n) and median() is O(1). Memory grows with the number
+ * of measurements; use QuantileSketch when that is not acceptable.
+ */
+public class RunningMedian {
+    private double[] lower = new double[16];
+    private double[] upper = new double[16];
+    private int lowerSize;
+    private int upperSize;
+
+    public void add(Sample sample) {
+        add(sample.measurement);
+    }
+
+    public void add(double measurement) {
+        if (lowerSize == 0 || measurement <= lower[0]) {
+            lower = push(lower, lowerSize++, measurement, true);
+        } else {
+            upper = push(upper, upperSize++, measurement, false);
+        }
+        //Keep lowerSize equal to upperSize or one more.
+        if (lowerSize > upperSize + 1) {
+            upper = push(upper, upperSize++, pop(lower, lowerSize--, true), false);
+        } else if (upperSize > lowerSize) {
+            lower = push(lower, lowerSize++, pop(upper, upperSize--, false), true);
+        }
+    }
+
+    public int size() {
+        return lowerSize + upperSize;
+    }
+
+    //The lower median, i.e. the nearest-rank 50th percentile, matching
+    //Sort.percentile(50).
+    public double median() {
+        if (lowerSize == 0)
+            throw new NoSuchElementException("No measurements");
+        return lower[0];
+    }
+
+    //Adds value to the heap holding size elements, growing it if needed.
+    //max selects a max-heap rather than a min-heap.
+    private static double[] push(double[] heap, int size, double value, boolean max) {
+        if (size == heap.length)
+            heap = Arrays.copyOf(heap, size * 2);
+        int i = size;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (max ? heap[parent] >= value : heap[parent] <= value)
+                break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+        return heap;
+    }
+
+    //Removes and returns the root of the heap holding size elements.
+    private static double pop(double[] heap, int size, boolean max) {
+        double root = heap[0];
+        double value = heap[--size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && (max ? heap[child + 1] > heap[child] : heap[child + 1] < heap[child]))
+                child++;
+            if (max ? heap[child] <= value : heap[child] >= value)
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+        return root;
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Stores samples column by column in parallel primitive arrays instead
+ * of one Sample object per entry. get() hands out a copy and set()
+ * writes the fields back, so code written against List&lt;Sample&gt;
+ * keeps working, while sorts that know about the columns can work on
+ * ids() and measurements() directly.
+ */
+public class SampleColumns extends AbstractList<Sample> implements RandomAccess {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] ids;
+    private double[] measurements;
+    private int size;
+
+    public SampleColumns() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SampleColumns(int capacity) {
+        ids = new int[Math.max(capacity, 1)];
+        measurements = new double[Math.max(capacity, 1)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Sample get(int i) {
+        checkIndex(i);
+        return new Sample(ids[i], measurements[i]);
+    }
+
+    @Override
+    public Sample set(int i, Sample s) {
+        checkIndex(i);
+        Sample old = new Sample(ids[i], measurements[i]);
+        ids[i] = s.id;
+        measurements[i] = s.measurement;
+        return old;
+    }
+
+    @Override
+    public boolean add(Sample s) {
+        add(s.id, s.measurement);
+        return true;
+    }
+
+    @Override
+    public void add(int i, Sample s) {
+        if (i < 0 || i > size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        if (size == ids.length)
+            grow(size + 1);
+        System.arraycopy(ids, i, ids, i + 1, size - i);
+        System.arraycopy(measurements, i, measurements, i + 1, size - i);
+        ids[i] = s.id;
+        measurements[i] = s.measurement;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Sample remove(int i) {
+        checkIndex(i);
+        Sample old = new Sample(ids[i], measurements[i]);
+        System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+        System.arraycopy(measurements, i + 1, measurements, i, size - i - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    public void add(int id, double measurement) {
+        if (size == ids.length)
+            grow(size + 1);
+        ids[size] = id;
+        measurements[size] = measurement;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    public int id(int i) {
+        return ids[i];
+    }
+
+    public double measurement(int i) {
+        return measurements[i];
+    }
+
+    public void swap(int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double m = measurements[i];
+        measurements[i] = measurements[j];
+        measurements[j] = m;
+    }
+
+    //The backing arrays. Only the first size() entries are in use.
+    int[] ids() {
+        return ids;
+    }
+
+    double[] measurements() {
+        return measurements;
+    }
+
+    //Replaces the backing arrays, e.g. after a sort that produced its
+    //result in new arrays. Both must hold at least size entries.
+    void setColumns(int[] ids, double[] measurements, int size) {
+        this.ids = ids;
+        this.measurements = measurements;
+        this.size = size;
+        modCount++;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > ids.length)
+            grow(capacity);
+    }
+
+    public void trimToSize() {
+        if (size < ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(size, 1));
+            measurements = Arrays.copyOf(measurements, Math.max(size, 1));
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        measurements = Arrays.copyOf(measurements, capacity);
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+    }
+}
@@ -0,0 +1,387 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Loads "id measurement" sample files by memory-mapping them and parsing
+ * the numbers straight out of the mapped bytes, without creating a String
+ * or Scanner per line. Lines that cannot be parsed are reported with their
+ * line number and skipped; blank lines are ignored.
+ *
+ * loadParallel() splits the file into byte ranges and parses them on the
+ * common fork-join pool, each into its own buffer, then concatenates the
+ * buffers in file order.
+ */
+public class SampleLoader {
+
+    //Files are mapped in windows of at most this many bytes, each cut
+    //back to the last newline so no line straddles two windows.
+    private static final int WINDOW = 1 << 30;
+
+    //Smallest byte range worth parsing on its own task, and the longest
+    //line a task may need to read past the end of its range.
+    private static final int MIN_SPLIT = 1 << 20;
+    private static final int MAX_LINE = 1 << 20;
+
+    //Powers of ten that are exactly representable as doubles.
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    //Receives each parsed sample, in file order.
+    interface Sink {
+        void accept(int id, double measurement);
+
+        default void malformed(long line, String text) {
+            reportMalformed(line, text);
+        }
+    }
+
+    private static void reportMalformed(long line, String text) {
+        System.err.println("Line " + line + ": cannot parse sample \"" + text + "\"");
+    }
+
+    public static SampleColumns load(String fileName) throws IOException {
+        SampleColumns columns = new SampleColumns();
+        load(fileName, columns::add);
+        columns.trimToSize();
+        return columns;
+    }
+
+    static void load(String fileName, Sink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long line = 1;
+            while (position < size) {
+                int length = (int) Math.min(WINDOW, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = length;
+                if (position + length < size) {
+                    while (end > 0 && buffer.get(end - 1) != '\n')
+                        end--;
+                    if (end == 0)
+                        throw new IOException("Line " + line + " of " + fileName + " is too long");
+                }
+                line += parse(buffer, 0, end, line, sink);
+                position += end;
+            }
+        }
+    }
+
+    public static SampleColumns loadParallel(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int parallelism = ForkJoinPool.getCommonPoolParallelism();
+            long split = Math.min(Math.max(size / (4L * parallelism) + 1, MIN_SPLIT), WINDOW);
+            List<RangeTask> tasks = new ArrayList<>();
+            for (long start = 0; start < size; start += split) {
+                tasks.add(new RangeTask(channel, size, start, Math.min(start + split, size)));
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            int total = 0;
+            for (RangeTask task : tasks) {
+                if (task.failure != null)
+                    throw new IOException(task.failure.getMessage(), task.failure);
+                total = Math.addExact(total, task.columns.size());
+            }
+            int[] ids = new int[Math.max(total, 1)];
+            double[] measurements = new double[Math.max(total, 1)];
+            int offset = 0;
+            long firstLine = 1;
+            for (RangeTask task : tasks) {
+                int n = task.columns.size();
+                System.arraycopy(task.columns.ids(), 0, ids, offset, n);
+                System.arraycopy(task.columns.measurements(), 0, measurements, offset, n);
+                offset += n;
+                for (int i = 0; i < task.errorLines.size(); i++) {
+                    reportMalformed(firstLine + task.errorLines.get(i), task.errorText.get(i));
+                }
+                firstLine += task.lines;
+            }
+            SampleColumns columns = new SampleColumns(0);
+            columns.setColumns(ids, measurements, total);
+            return columns;
+        }
+    }
+
+    //Parses the lines that start within [start, end) of the file into a
+    //local buffer. Line numbers in errorLines are relative to the range.
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final FileChannel channel;
+        private final long size;
+        private final long start;
+        private final long end;
+        final SampleColumns columns = new SampleColumns();
+        final List<Long> errorLines = new ArrayList<>();
+        final List<String> errorText = new ArrayList<>();
+        long lines;
+        IOException failure;
+
+        RangeTask(FileChannel channel, long size, long start, long end) {
+            this.channel = channel;
+            this.size = size;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                //Map one byte before the range, to see whether the range
+                //starts on a line boundary, and enough after it to finish
+                //the last line.
+                long mapStart = Math.max(start - 1, 0);
+                long mapEnd = Math.min(end + MAX_LINE, size);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+                int limit = (int) (mapEnd - mapStart);
+                int from = 0;
+                if (start > 0) {
+                    while (from < limit && buffer.get(from) != '\n')
+                        from++;
+                    from++;
+                }
+                int rangeEnd = (int) (end - mapStart);
+                if (from >= rangeEnd)
+                    return;
+                int to = rangeEnd - 1;
+                while (to < limit && buffer.get(to) != '\n')
+                    to++;
+                if (to == limit && mapEnd < size)
+                    throw new IOException("Line near byte " + end + " is too long");
+                to = Math.min(to + 1, limit);
+                lines = parse(buffer, from, to, 0, new Sink() {
+                    @Override
+                    public void accept(int id, double measurement) {
+                        columns.add(id, measurement);
+                    }
+
+                    @Override
+                    public void malformed(long line, String text) {
+                        errorLines.add(line);
+                        errorText.add(text);
+                    }
+                });
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    //Parses the lines in buffer[from, to), numbering them from firstLine,
+    //and returns how many lines were consumed.
+    static long parse(ByteBuffer buffer, int from, int to, long firstLine, Sink sink) {
+        long lines = 0;
+        int pos = from;
+        while (pos < to) {
+            int eol = pos;
+            while (eol < to && buffer.get(eol) != '\n')
+                eol++;
+            if (!parseLine(buffer, pos, eol, sink))
+                sink.malformed(firstLine + lines, text(buffer, pos, eol));
+            lines++;
+            pos = eol + 1;
+        }
+        return lines;
+    }
+
+    //Parses one line in buffer[from, to). Returns false if it is malformed.
+    private static boolean parseLine(ByteBuffer buffer, int from, int to, Sink sink) {
+        int pos = skipSpace(buffer, from, to);
+        if (pos == to)
+            return true;
+
+        boolean negative = false;
+        byte b = buffer.get(pos);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            pos++;
+        }
+        int digitsStart = pos;
+        long id = 0;
+        while (pos < to && isDigit(b = buffer.get(pos))) {
+            id = id * 10 + (b - '0');
+            if (id > (long) Integer.MAX_VALUE + 1)
+                return false;
+            pos++;
+        }
+        if (pos == digitsStart || (pos < to && !isSpace(b)))
+            return false;
+        id = negative ? -id : id;
+        if (id > Integer.MAX_VALUE)
+            return false;
+
+        pos = skipSpace(buffer, pos, to);
+        int tokenStart = pos;
+        while (pos < to && !isSpace(buffer.get(pos)))
+            pos++;
+        if (pos == tokenStart)
+            return false;
+        double measurement = parseDouble(buffer, tokenStart, pos);
+        if (Double.isNaN(measurement) && !"NaN".equals(text(buffer, tokenStart, pos)))
+            return false;
+        sink.accept((int) id, measurement);
+        return true;
+    }
+
+    //Parses a decimal number such as 13.37, -2.5e3 or .5. With at most 15
+    //significant digits and a power of ten up to 1e22 both operands are
+    //exact doubles, so one multiply or divide gives the correctly rounded
+    //result without allocating; anything else falls back to
+    //Double.parseDouble. Returns NaN if the token is not a number.
+    private static double parseDouble(ByteBuffer buffer, int from, int to) {
+        int pos = from;
+        boolean negative = false;
+        byte b = buffer.get(pos);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; pos < to; pos++) {
+            b = buffer.get(pos);
+            if (isDigit(b)) {
+                seenDigit = true;
+                if (mantissa == 0 && b == '0') {
+                    if (seenPoint)
+                        scale++;
+                    continue;
+                }
+                if (++digits > 15)
+                    return slowParse(buffer, from, to);
+                mantissa = mantissa * 10 + (b - '0');
+                if (seenPoint)
+                    scale++;
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!seenDigit)
+            return slowParse(buffer, from, to);
+        if (pos < to) {
+            if (b != 'e' && b != 'E')
+                return slowParse(buffer, from, to);
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < to && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+                negativeExponent = buffer.get(pos) == '-';
+                pos++;
+            }
+            int exponentStart = pos;
+            int exponent = 0;
+            while (pos < to && isDigit(b = buffer.get(pos)) && exponent < 1000) {
+                exponent = exponent * 10 + (b - '0');
+                pos++;
+            }
+            if (pos != to || pos == exponentStart)
+                return slowParse(buffer, from, to);
+            scale += negativeExponent ? exponent : -exponent;
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (scale >= 0 && scale < POW10.length) {
+            value = mantissa / POW10[scale];
+        } else if (scale < 0 && -scale < POW10.length) {
+            value = mantissa * POW10[-scale];
+        } else {
+            return slowParse(buffer, from, to);
+        }
+        return negative ? -value : value;
+    }
+
+    //Double.parseDouble also takes forms such as 1d, 0x1p3 and 1f that the
+    //Scanner-based loader rejected, so only plain decimal and exponent
+    //syntax is passed to it. Infinity is accepted, as Scanner does.
+    private static double slowParse(ByteBuffer buffer, int from, int to) {
+        String token = text(buffer, from, to);
+        if (!isDecimal(token)) {
+            switch (token) {
+                case "Infinity":
+                case "+Infinity":
+                    return Double.POSITIVE_INFINITY;
+                case "-Infinity":
+                    return Double.NEGATIVE_INFINITY;
+                default:
+                    return Double.NaN;
+            }
+        }
+        return Double.parseDouble(token);
+    }
+
+    //[+-]digits[.digits][(e|E)[+-]digits], where either side of the point
+    //may be empty but not both.
+    private static boolean isDecimal(String token) {
+        int pos = 0;
+        int n = token.length();
+        if (pos < n && (token.charAt(pos) == '-' || token.charAt(pos) == '+'))
+            pos++;
+        int digits = 0;
+        while (pos < n && isDigit((byte) token.charAt(pos))) {
+            pos++;
+            digits++;
+        }
+        if (pos < n && token.charAt(pos) == '.') {
+            pos++;
+            while (pos < n && isDigit((byte) token.charAt(pos))) {
+                pos++;
+                digits++;
+            }
+        }
+        if (digits == 0)
+            return false;
+        if (pos < n && (token.charAt(pos) == 'e' || token.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < n && (token.charAt(pos) == '-' || token.charAt(pos) == '+'))
+                pos++;
+            int exponentStart = pos;
+            while (pos < n && isDigit((byte) token.charAt(pos)))
+                pos++;
+            if (pos == exponentStart)
+                return false;
+        }
+        return pos == n;
+    }
+
+    private static int skipSpace(ByteBuffer buffer, int pos, int to) {
+        while (pos < to && isSpace(buffer.get(pos)))
+            pos++;
+        return pos;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static String text(ByteBuffer buffer, int from, int to) {
+        while (to > from && buffer.get(to - 1) == '\r')
+            to--;
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
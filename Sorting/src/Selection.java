@@ -0,0 +1,145 @@
+/**
+ * Order-statistic helpers used by Sort. Ranks count from 0 in descending
+ * order of key, so rank 0 is the largest key.
+ */
+class Selection {
+
+    private static final int INSERTION_CUTOFF = 16;
+
+    private Selection() {
+    }
+
+    //Returns the positions of the k largest keys, largest first, using a
+    //bounded min-heap of size k. O(n log k). Among equal keys the earlier
+    //position wins.
+    static int[] topK(double[] keys, int n, int k) {
+        k = Math.min(k, n);
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (size < k) {
+                heap[size] = i;
+                siftUp(heap, keys, size++);
+            } else if (k > 0 && keys[i] > keys[heap[0]]) {
+                heap[0] = i;
+                siftDown(heap, keys, 0, k);
+            }
+        }
+        //Popping the minimum repeatedly fills the result from the back.
+        int[] top = new int[size];
+        for (int end = size - 1; end >= 0; end--) {
+            top[end] = heap[0];
+            heap[0] = heap[end];
+            siftDown(heap, keys, 0, end);
+        }
+        return top;
+    }
+
+    //The heap is ordered so the smallest key, and among equal keys the
+    //latest position, sits at the root and is evicted first.
+    private static boolean lower(double[] keys, int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && a > b);
+    }
+
+    private static void siftUp(int[] heap, double[] keys, int i) {
+        int node = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!lower(keys, node, heap[parent]))
+                break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = node;
+    }
+
+    private static void siftDown(int[] heap, double[] keys, int i, int size) {
+        int node = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && lower(keys, heap[child + 1], heap[child]))
+                child++;
+            if (!lower(keys, heap[child], node))
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = node;
+    }
+
+    //1-based ascending nearest rank of the p-th percentile among n values,
+    //ceil(p / 100 * n) clamped to [1, n]. p * n is computed before dividing
+    //so the rank is exact for integral p; p / 100 first would round 7 / 100
+    //up and push the rank of percentile(7) of 100 values to 8.
+    static long nearestRank(double p, long n) {
+        long rank = (long) Math.ceil(p * n / 100);
+        return Math.min(Math.max(rank, 1), n);
+    }
+
+    //Introselect: rearranges keys[0, n) and payload alongside so the key
+    //of the given rank is at keys[rank], with larger keys before it and
+    //smaller ones after. Quickselect with median-of-three pivots runs in
+    //O(n) on average; if it recurses too deeply on adversarial input the
+    //remaining range is merge sorted, bounding the worst case at
+    //O(n log n).
+    static void select(double[] keys, int[] payload, int n, int rank) {
+        int lo = 0;
+        int hi = n - 1;
+        int depth = 2 * (32 - Integer.numberOfLeadingZeros(n));
+        while (hi - lo > INSERTION_CUTOFF) {
+            if (depth-- == 0) {
+                MergeSort.sort(keys, payload, lo, hi + 1);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            //Order lo, mid, hi descending and use the middle as the pivot.
+            if (keys[mid] > keys[lo])
+                swap(keys, payload, lo, mid);
+            if (keys[hi] > keys[lo])
+                swap(keys, payload, lo, hi);
+            if (keys[hi] > keys[mid])
+                swap(keys, payload, mid, hi);
+            double pivot = keys[mid];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] > pivot)
+                    i++;
+                while (keys[j] < pivot)
+                    j--;
+                if (i <= j)
+                    swap(keys, payload, i++, j--);
+            }
+            if (rank <= j) {
+                hi = j;
+            } else if (rank >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            double key = keys[i];
+            int value = payload[i];
+            int j = i - 1;
+            while (j >= lo && keys[j] < key) {
+                keys[j + 1] = keys[j];
+                payload[j + 1] = payload[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            payload[j + 1] = value;
+        }
+    }
+
+    private static void swap(double[] keys, int[] payload, int i, int j) {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int value = payload[i];
+        payload[i] = payload[j];
+        payload[j] = value;
+    }
+}
@@ -1,11 +1,176 @@
 public class SelectionSort extends Sort {
 
+    private static final int INSERTION_CUTOFF = 32;
+
+    private double[] keys;
+    private int[] payload;
+
     public SelectionSort(String fileName) {
         super(fileName);
     }
 
+    public SelectionSort(String fileName, boolean columnar) {
+        super(fileName, columnar);
+    }
+
+    //In-place dual-pivot introsort on the raw measurements: dual-pivot
+    //quicksort, insertion sort for short ranges, and heapsort once the
+    //recursion gets deeper than about 2 log n so no input can force
+    //O(n^2). Not stable.
     @Override
     public void sort() {
+        int n = samples.size();
+        if (n < 2)
+            return;
+        keys = sortKeys();
+        payload = sortPayload();
+        sort(0, n - 1, 2 * (32 - Integer.numberOfLeadingZeros(n)));
+        applySorted(keys, payload);
+        keys = null;
+        payload = null;
+    }
+
+    //Sorts keys[lo..hi], inclusive, in descending order.
+    private void sort(int lo, int hi, int depth) {
+        while (hi - lo >= INSERTION_CUTOFF) {
+            if (depth-- == 0) {
+                heapSort(lo, hi);
+                return;
+            }
+            //Sort five evenly spaced elements and take the second and
+            //fourth as pivots, so p1 >= p2.
+            int seventh = ((hi - lo + 1) >> 3) + ((hi - lo + 1) >> 6) + 1;
+            int e3 = (lo + hi) >>> 1;
+            int e2 = e3 - seventh;
+            int e1 = e2 - seventh;
+            int e4 = e3 + seventh;
+            int e5 = e4 + seventh;
+            sortFive(e1, e2, e3, e4, e5);
+            swap(e2, lo);
+            swap(e4, hi);
+            double p1 = keys[lo];
+            double p2 = keys[hi];
+
+            //Partition into [ > p1 | p2 <= x <= p1 | < p2 ].
+            int less = lo + 1;
+            int great = hi - 1;
+            for (int k = less; k <= great; k++) {
+                double key = keys[k];
+                if (key > p1) {
+                    stats.compare();
+                    swap(k, less++);
+                } else if (key < p2) {
+                    stats.compare(2);
+                    while (keys[great] < p2 && k < great) {
+                        stats.compare();
+                        great--;
+                    }
+                    swap(k, great--);
+                    stats.compare();
+                    if (keys[k] > p1)
+                        swap(k, less++);
+                } else {
+                    stats.compare(2);
+                }
+            }
+            swap(lo, less - 1);
+            swap(hi, great + 1);
+
+            sort(lo, less - 2, depth);
+            sort(great + 2, hi, depth);
+            //With equal pivots the middle part is all equal keys.
+            if (p1 == p2)
+                return;
+            lo = less;
+            hi = great;
+        }
+        insertionSort(lo, hi);
+    }
+
+    //Five-element sorting network, descending.
+    private void sortFive(int a, int b, int c, int d, int e) {
+        order(a, b);
+        order(d, e);
+        order(c, e);
+        order(c, d);
+        order(a, d);
+        order(a, c);
+        order(b, e);
+        order(b, d);
+        order(b, c);
+    }
+
+    private void order(int i, int j) {
+        stats.compare();
+        if (keys[j] > keys[i])
+            swap(i, j);
+    }
+
+    private void insertionSort(int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            double key = keys[i];
+            int value = payload[i];
+            int j = i - 1;
+            while (j >= lo && keys[j] < key) {
+                stats.compare();
+                keys[j + 1] = keys[j];
+                payload[j + 1] = payload[j];
+                stats.move(1);
+                j--;
+            }
+            if (j >= lo)
+                stats.compare();
+            keys[j + 1] = key;
+            payload[j + 1] = value;
+            stats.move(1);
+        }
+    }
+
+    //Heapsort of keys[lo..hi] using a min-heap rooted at lo, so each
+    //extracted minimum goes to the end of the range.
+    private void heapSort(int lo, int hi) {
+        int n = hi - lo + 1;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(lo, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swap(lo, lo + end);
+            siftDown(lo, 0, end);
+        }
+    }
+
+    private void siftDown(int base, int i, int n) {
+        double key = keys[base + i];
+        int value = payload[base + i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n)
+                break;
+            if (child + 1 < n) {
+                stats.compare();
+                if (keys[base + child + 1] < keys[base + child])
+                    child++;
+            }
+            stats.compare();
+            if (keys[base + child] >= key)
+                break;
+            keys[base + i] = keys[base + child];
+            payload[base + i] = payload[base + child];
+            stats.move(1);
+            i = child;
+        }
+        keys[base + i] = key;
+        payload[base + i] = value;
+        stats.move(1);
+    }
 
+    private void swap(int i, int j) {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int value = payload[i];
+        payload[i] = payload[j];
+        payload[j] = value;
+        stats.swap();
     }
 }
@@ -1,33 +1,325 @@
-import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 public abstract class Sort {
 
-    ArrayList<Sample> samples = new ArrayList<>();
+    //Either an ArrayList of Sample objects or, in columnar mode, a
+    //SampleColumns backed by parallel int[] ids and double[] measurements.
+    List<Sample> samples;
+
+    //Cached result of isSorted(), valid while orderKnown is set. Both
+    //answers are cached. applySorted() records the order sort() leaves,
+    //addBatch() keeps the flag up to date, and code that reorders samples
+    //directly must call samplesChanged().
+    private boolean orderKnown;
+    private boolean sorted;
+
+    private static final int WRITE_BUFFER = 1 << 16;
+
+    final SortStats stats = new SortStats();
 
     public Sort(String fileName) {
+        this(fileName, false);
+    }
+
+    public Sort(String fileName, boolean columnar) {
+        long start = System.nanoTime();
+        SampleColumns columns;
         try {
-            Scanner s = new Scanner(new File(fileName));
-            while (s.hasNextLine()) {
-                Scanner line = new Scanner(s.nextLine());
-                samples.add(new Sample(line.nextInt(), line.nextDouble()));
-            }
-        } catch (Exception e) {
+            columns = SampleLoader.loadParallel(fileName);
+        } catch (IOException e) {
             System.err.println(e.getMessage());
+            columns = new SampleColumns();
+        }
+        if (columnar) {
+            samples = columns;
+        } else {
+            samples = new ArrayList<>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                samples.add(new Sample(columns.id(i), columns.measurement(i)));
+            }
+        }
+        stats.recordLoad(System.nanoTime() - start);
+    }
+
+
+    public SortStats stats() {
+        return stats;
+    }
+
+    //Runs sort() and records how long it took. Comparison, move and
+    //access counts are collected too when SortStats.ENABLED is set.
+    public void measureSort() {
+        stats.reset();
+        long start = System.nanoTime();
+        sort();
+        stats.recordSort(System.nanoTime() - start);
+    }
+
+    //Machine-readable summary of the last measured load and sort.
+    public String report() {
+        return stats.toJson(getClass().getSimpleName(), samples.size(), isColumnar());
+    }
+
+    public boolean isColumnar() {
+        return samples instanceof SampleColumns;
+    }
+
+    //Read a field without materializing a Sample in columnar mode.
+    double measurementAt(int i) {
+        if (samples instanceof SampleColumns)
+            return ((SampleColumns) samples).measurement(i);
+        return samples.get(i).measurement;
+    }
+
+    int idAt(int i) {
+        if (samples instanceof SampleColumns)
+            return ((SampleColumns) samples).id(i);
+        return samples.get(i).id;
+    }
+
+    //The helpers below let an algorithm sort a pair of primitive arrays
+    //(keys and payload) and then hand the result back, whichever storage
+    //mode is in use. In columnar mode the keys and payload are the backing
+    //measurements and ids themselves; otherwise the keys are a copy of the
+    //measurements and the payload holds each sample's original position.
+
+    double[] sortKeys() {
+        if (samples instanceof SampleColumns)
+            return ((SampleColumns) samples).measurements();
+        double[] keys = new double[samples.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = samples.get(i).measurement;
+        }
+        return keys;
+    }
+
+    int[] sortPayload() {
+        if (samples instanceof SampleColumns)
+            return ((SampleColumns) samples).ids();
+        int[] payload = new int[samples.size()];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = i;
+        }
+        return payload;
+    }
+
+    //Installs the sorted order. keys and payload may be the arrays handed
+    //out above or new arrays produced by the algorithm.
+    void applySorted(double[] keys, int[] payload) {
+        int n = samples.size();
+        orderKnown = true;
+        sorted = true;
+        if (samples instanceof SampleColumns) {
+            ((SampleColumns) samples).setColumns(payload, keys, n);
+            return;
+        }
+        Sample[] old = samples.toArray(new Sample[n]);
+        for (int i = 0; i < n; i++) {
+            samples.set(i, old[payload[i]]);
         }
     }
 
 
+    //True if the samples are in descending order of measurement. Scans
+    //only when the order is not already known; see orderKnown.
+    public boolean isSorted() {
+        if (!orderKnown) {
+            int n = samples.size();
+            int i = 1;
+            while (i < n && measurementAt(i - 1) >= measurementAt(i))
+                i++;
+            sorted = i >= n;
+            orderKnown = true;
+        }
+        return sorted;
+    }
+
+    //Forgets the cached isSorted() result after samples were reordered or
+    //replaced other than through sort() or addBatch().
+    void samplesChanged() {
+        orderKnown = false;
+    }
+
+    //Appends a batch of samples. If the samples are already sorted only
+    //the batch is sorted, and it is then merged in from the back in
+    //linear time, so the samples stay sorted without a full sort().
+    //Existing samples come before new ones with equal measurements.
+    public void addBatch(List<Sample> batch) {
+        int m = batch.size();
+        if (m == 0)
+            return;
+        if (!isSorted()) {
+            samples.addAll(batch);
+            return;
+        }
+        double[] keys = new double[m];
+        int[] positions = new int[m];
+        for (int i = 0; i < m; i++) {
+            keys[i] = batch.get(i).measurement;
+            positions[i] = i;
+        }
+        MergeSort.sort(keys, positions, 0, m, stats);
+
+        int n = samples.size();
+        int i = n - 1;
+        int j = m - 1;
+        if (samples instanceof SampleColumns) {
+            SampleColumns columns = (SampleColumns) samples;
+            columns.ensureCapacity(n + m);
+            int[] ids = columns.ids();
+            double[] measurements = columns.measurements();
+            for (int k = n + m - 1; j >= 0; k--) {
+                if (i >= 0 && measurements[i] < keys[j]) {
+                    ids[k] = ids[i];
+                    measurements[k] = measurements[i--];
+                } else {
+                    ids[k] = batch.get(positions[j]).id;
+                    measurements[k] = keys[j--];
+                }
+            }
+            columns.setColumns(ids, measurements, n + m);
+        } else {
+            Sample[] delta = new Sample[m];
+            for (int k = 0; k < m; k++) {
+                delta[k] = batch.get(positions[k]);
+            }
+            samples.addAll(Arrays.asList(delta));
+            for (int k = n + m - 1; j >= 0; k--) {
+                if (i >= 0 && samples.get(i).measurement < delta[j].measurement)
+                    samples.set(k, samples.get(i--));
+                else
+                    samples.set(k, delta[j--]);
+            }
+        }
+    }
+
+    //Returns the k samples with the largest measurements, largest first,
+    //without sorting everything. Uses a bounded heap: O(n log k).
+    public List<Sample> topK(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        int[] top = Selection.topK(sortKeys(), samples.size(), k);
+        List<Sample> result = new ArrayList<>(top.length);
+        for (int i : top) {
+            result.add(samples.get(i));
+        }
+        return result;
+    }
+
+    //Returns the sample that sort() would put at position rank (0 is the
+    //largest measurement), ties included, using introselect: O(n) on
+    //average. The samples themselves are not reordered.
+    public Sample select(int rank) {
+        int n = samples.size();
+        if (rank < 0 || rank >= n)
+            throw new IndexOutOfBoundsException("Rank: " + rank + ", Size: " + n);
+        double[] keys = sortKeys();
+        if (samples instanceof SampleColumns)
+            keys = Arrays.copyOf(keys, n);
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            positions[i] = i;
+        }
+        Selection.select(keys, positions, n, rank);
+        //Quickselect is not stable, so among samples with the same
+        //measurement pick the one sort() would put at rank: the samples
+        //before it in sorted order are the larger ones and the earlier
+        //equal ones.
+        double key = keys[rank];
+        int equalBefore = rank;
+        for (int i = 0; i < n; i++) {
+            if (keys[i] > key)
+                equalBefore--;
+        }
+        for (int i = 0; i < n; i++) {
+            if (measurementAt(i) == key && equalBefore-- == 0)
+                return samples.get(i);
+        }
+        return samples.get(positions[rank]);
+    }
+
+    //Returns the p-th percentile (0 < p <= 100) of the measurements using
+    //the nearest-rank method, so percentile(99) is the value that 99% of
+    //the measurements are at or below.
+    public double percentile(double p) {
+        if (!(p > 0 && p <= 100))
+            throw new IllegalArgumentException("Percentile must be in (0, 100]: " + p);
+        int n = samples.size();
+        if (n == 0)
+            throw new NoSuchElementException("No samples");
+        return select(n - (int) Selection.nearestRank(p, n)).measurement;
+    }
+
+
     public String toString() {
         if (samples.size() == 0)
             return "[]";
-        String retVal = "[";
+        StringBuilder retVal = new StringBuilder("[");
         for (Sample s : samples) {
-            retVal += s.toString() + ",";
+            retVal.append(s.toString()).append(',');
         }
-        return retVal.substring(0, retVal.length() - 1) + "]";
+        retVal.setCharAt(retVal.length() - 1, ']');
+        return retVal.toString();
+    }
+
+    //Streams the samples, in their current order, as "id measurement"
+    //lines, the same format the constructor reads. Lines are formatted
+    //into one reused buffer rather than building the whole text in memory.
+    public void writeTo(Writer out) throws IOException {
+        StringBuilder line = new StringBuilder();
+        char[] buffer = new char[WRITE_BUFFER];
+        int used = 0;
+        for (int i = 0; i < samples.size(); i++) {
+            formatLine(line, i);
+            if (used + line.length() > buffer.length) {
+                out.write(buffer, 0, used);
+                used = 0;
+            }
+            line.getChars(0, line.length(), buffer, used);
+            used += line.length();
+        }
+        out.write(buffer, 0, used);
+        out.flush();
+    }
+
+    //Same as writeTo(Writer), encoded as ASCII bytes.
+    public void writeTo(OutputStream out) throws IOException {
+        StringBuilder line = new StringBuilder();
+        byte[] buffer = new byte[WRITE_BUFFER];
+        int used = 0;
+        for (int i = 0; i < samples.size(); i++) {
+            formatLine(line, i);
+            if (used + line.length() > buffer.length) {
+                out.write(buffer, 0, used);
+                used = 0;
+            }
+            for (int c = 0; c < line.length(); c++) {
+                buffer[used++] = (byte) line.charAt(c);
+            }
+        }
+        out.write(buffer, 0, used);
+        out.flush();
+    }
+
+    //Writes the samples as 12-byte BinarySamples records.
+    public void writeBinary(OutputStream out) throws IOException {
+        BinarySamples.RecordWriter writer = new BinarySamples.RecordWriter(out);
+        for (int i = 0; i < samples.size(); i++) {
+            writer.write(idAt(i), measurementAt(i));
+        }
+        writer.flush();
+    }
+
+    private void formatLine(StringBuilder line, int i) {
+        line.setLength(0);
+        line.append(idAt(i)).append(' ').append(measurementAt(i)).append('\n');
     }
 
 
@@ -0,0 +1,104 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in instrumentation for the Sort algorithms: counts key comparisons,
+ * element moves and array accesses, and records load and sort wall time.
+ *
+ * Counting is switched on by starting the JVM with -Dsort.stats=true.
+ * ENABLED is a static final constant, so when it is false the JIT folds
+ * the checks below away and the counting calls cost nothing. Counters are
+ * LongAdders because the parallel sorts update them from several threads.
+ */
+public class SortStats {
+    public static final boolean ENABLED = Boolean.getBoolean("sort.stats");
+
+    private final LongAdder comparisons = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder accesses = new LongAdder();
+    private volatile long loadNanos;
+    private volatile long sortNanos;
+
+    //One comparison of two keys, which reads both.
+    void compare() {
+        if (ENABLED) {
+            comparisons.increment();
+            accesses.add(2);
+        }
+    }
+
+    void compare(long n) {
+        if (ENABLED) {
+            comparisons.add(n);
+            accesses.add(2 * n);
+        }
+    }
+
+    //n elements copied from one slot to another: a read and a write each.
+    void move(long n) {
+        if (ENABLED) {
+            moves.add(n);
+            accesses.add(2 * n);
+        }
+    }
+
+    //Two elements exchanged.
+    void swap() {
+        move(2);
+    }
+
+    //n reads or writes that are neither comparisons nor moves.
+    void access(long n) {
+        if (ENABLED)
+            accesses.add(n);
+    }
+
+    void recordLoad(long nanos) {
+        loadNanos = nanos;
+    }
+
+    void recordSort(long nanos) {
+        sortNanos = nanos;
+    }
+
+    public long comparisons() {
+        return comparisons.sum();
+    }
+
+    public long moves() {
+        return moves.sum();
+    }
+
+    public long accesses() {
+        return accesses.sum();
+    }
+
+    public long loadNanos() {
+        return loadNanos;
+    }
+
+    public long sortNanos() {
+        return sortNanos;
+    }
+
+    public void reset() {
+        comparisons.reset();
+        moves.reset();
+        accesses.reset();
+        sortNanos = 0;
+    }
+
+    //One-line JSON record, suitable for appending to a log and comparing
+    //across releases.
+    public String toJson(String algorithm, int samples, boolean columnar) {
+        return "{\"algorithm\":\"" + algorithm + "\""
+                + ",\"samples\":" + samples
+                + ",\"columnar\":" + columnar
+                + ",\"counting\":" + ENABLED
+                + ",\"comparisons\":" + comparisons()
+                + ",\"moves\":" + moves()
+                + ",\"accesses\":" + accesses()
+                + ",\"loadNanos\":" + loadNanos
+                + ",\"sortNanos\":" + sortNanos
+                + "}";
+    }
+}
@@ -0,0 +1,386 @@
+public class TimSort extends Sort {
+
+    //Inputs shorter than this are sorted with one binary insertion sort.
+    private static final int MIN_MERGE = 32;
+    //Consecutive wins by one run before a merge switches to galloping.
+    private static final int MIN_GALLOP = 7;
+
+    private double[] keys;
+    private int[] payload;
+    private double[] keyScratch;
+    private int[] payloadScratch;
+    private int minGallop;
+
+    //Pending runs, as (base, length) pairs, waiting to be merged.
+    private final int[] runBase = new int[64];
+    private final int[] runLen = new int[64];
+    private int stackSize;
+
+    public TimSort(String fileName) {
+        super(fileName);
+    }
+
+    public TimSort(String fileName, boolean columnar) {
+        super(fileName, columnar);
+    }
+
+    //Adaptive, stable merge sort in the style of TimSort. Natural
+    //descending runs are found and kept, strictly ascending runs are
+    //reversed, short runs are extended with binary insertion sort, and
+    //runs are merged with galloping, so presorted input takes close to
+    //linear time.
+    @Override
+    public void sort() {
+        int n = samples.size();
+        if (n < 2)
+            return;
+        keys = sortKeys();
+        payload = sortPayload();
+        keyScratch = new double[Math.min(n / 2 + 1, 256)];
+        payloadScratch = new int[keyScratch.length];
+        minGallop = MIN_GALLOP;
+        stackSize = 0;
+
+        int lo = 0;
+        int remaining = n;
+        int minRun = minRunLength(n);
+        while (remaining > 0) {
+            int length = countRunAndMakeDescending(lo, n);
+            if (length < minRun) {
+                int force = Math.min(remaining, minRun);
+                binaryInsertionSort(lo, lo + force, lo + length);
+                length = force;
+            }
+            runBase[stackSize] = lo;
+            runLen[stackSize] = length;
+            stackSize++;
+            mergeCollapse();
+            lo += length;
+            remaining -= length;
+        }
+        while (stackSize > 1) {
+            int i = stackSize - 2;
+            if (i > 0 && runLen[i - 1] < runLen[i + 1])
+                i--;
+            mergeAt(i);
+        }
+
+        applySorted(keys, payload);
+        keys = null;
+        payload = null;
+        keyScratch = null;
+        payloadScratch = null;
+    }
+
+    //Returns a run length k >= MIN_MERGE / 2 such that n / k is a power
+    //of two or slightly less, so the final merges are balanced.
+    private static int minRunLength(int n) {
+        int r = 0;
+        while (n >= MIN_MERGE) {
+            r |= n & 1;
+            n >>= 1;
+        }
+        return n + r;
+    }
+
+    //Returns the length of the run starting at lo. A non-increasing run is
+    //left as is; a strictly increasing one is reversed, which cannot
+    //reorder equal keys.
+    private int countRunAndMakeDescending(int lo, int hi) {
+        int end = lo + 1;
+        if (end == hi)
+            return 1;
+        if (keys[end++] > keys[lo]) {
+            while (end < hi && keys[end] > keys[end - 1])
+                end++;
+            reverse(lo, end);
+        } else {
+            while (end < hi && keys[end] <= keys[end - 1])
+                end++;
+        }
+        //Each neighbouring pair in the run, plus the pair that ended it.
+        stats.compare(end - lo - (end < hi ? 0 : 1));
+        return end - lo;
+    }
+
+    private void reverse(int lo, int hi) {
+        for (hi--; lo < hi; lo++, hi--) {
+            double key = keys[lo];
+            keys[lo] = keys[hi];
+            keys[hi] = key;
+            int value = payload[lo];
+            payload[lo] = payload[hi];
+            payload[hi] = value;
+            stats.swap();
+        }
+    }
+
+    //Sorts [lo, hi) given that [lo, start) is already sorted. Each key is
+    //placed after any equal keys, keeping the sort stable.
+    private void binaryInsertionSort(int lo, int hi, int start) {
+        for (int i = start; i < hi; i++) {
+            double key = keys[i];
+            int value = payload[i];
+            int left = lo;
+            int right = i;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                stats.compare();
+                if (key > keys[mid])
+                    right = mid;
+                else
+                    left = mid + 1;
+            }
+            System.arraycopy(keys, left, keys, left + 1, i - left);
+            System.arraycopy(payload, left, payload, left + 1, i - left);
+            keys[left] = key;
+            payload[left] = value;
+            stats.move(i - left + 1);
+        }
+    }
+
+    //Merges adjacent runs until the run lengths on the stack satisfy
+    //len[i - 2] > len[i - 1] + len[i] and len[i - 1] > len[i], which keeps
+    //merges balanced and the stack shallow.
+    private void mergeCollapse() {
+        while (stackSize > 1) {
+            int i = stackSize - 2;
+            if (i > 0 && runLen[i - 1] <= runLen[i] + runLen[i + 1]
+                    || i > 1 && runLen[i - 2] <= runLen[i] + runLen[i - 1]) {
+                if (runLen[i - 1] < runLen[i + 1])
+                    i--;
+            } else if (runLen[i] > runLen[i + 1]) {
+                break;
+            }
+            mergeAt(i);
+        }
+    }
+
+    //Merges stack runs i and i + 1.
+    private void mergeAt(int i) {
+        int base1 = runBase[i];
+        int len1 = runLen[i];
+        int base2 = runBase[i + 1];
+        int len2 = runLen[i + 1];
+        runLen[i] = len1 + len2;
+        if (i == stackSize - 3) {
+            runBase[i + 1] = runBase[i + 2];
+            runLen[i + 1] = runLen[i + 2];
+        }
+        stackSize--;
+
+        //Leading keys of run 1 that are >= the first key of run 2, and
+        //trailing keys of run 2 that are <= the last key of run 1, are
+        //already in their final place.
+        int k = countPrefix(keys[base2], keys, base1, len1, true, false);
+        base1 += k;
+        len1 -= k;
+        if (len1 == 0)
+            return;
+        len2 = countPrefix(keys[base1 + len1 - 1], keys, base2, len2, false, true);
+        if (len2 == 0)
+            return;
+
+        if (len1 <= len2)
+            mergeLo(base1, len1, base2, len2);
+        else
+            mergeHi(base1, len1, base2, len2);
+    }
+
+    //Length of the prefix of the descending range a[base, base + len)
+    //whose keys are > key (or >= key if inclusive). Gallops from the end
+    //of the range instead of the start if fromEnd is set.
+    private int countPrefix(double key, double[] a, int base, int len, boolean inclusive, boolean fromEnd) {
+        int lo;
+        int hi;
+        if (!fromEnd) {
+            if (!before(a[base], key, inclusive))
+                return 0;
+            int last = 0;
+            int step = 1;
+            while (last + step < len && before(a[base + last + step], key, inclusive)) {
+                last += step;
+                step <<= 1;
+            }
+            lo = last + 1;
+            hi = Math.min(last + step, len);
+        } else {
+            if (before(a[base + len - 1], key, inclusive))
+                return len;
+            int first = len - 1;
+            int step = 1;
+            while (first - step >= 0 && !before(a[base + first - step], key, inclusive)) {
+                first -= step;
+                step <<= 1;
+            }
+            lo = Math.max(first - step + 1, 0);
+            hi = first;
+        }
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (before(a[base + mid], key, inclusive))
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    private boolean before(double x, double key, boolean inclusive) {
+        stats.compare();
+        return inclusive ? x >= key : x > key;
+    }
+
+    //Merges two adjacent runs with the shorter first run copied out to
+    //scratch and the result written from the front.
+    private void mergeLo(int base1, int len1, int base2, int len2) {
+        ensureScratch(len1);
+        System.arraycopy(keys, base1, keyScratch, 0, len1);
+        System.arraycopy(payload, base1, payloadScratch, 0, len1);
+        //The copy to scratch, plus each merged element written once.
+        stats.move(2L * len1 + len2);
+        int cursor1 = 0;
+        int cursor2 = base2;
+        int dest = base1;
+
+        merge:
+        while (true) {
+            int count1 = 0;
+            int count2 = 0;
+            //One element at a time until one run keeps winning.
+            do {
+                stats.compare();
+                if (keys[cursor2] > keyScratch[cursor1]) {
+                    keys[dest] = keys[cursor2];
+                    payload[dest++] = payload[cursor2++];
+                    count2++;
+                    count1 = 0;
+                    if (--len2 == 0)
+                        break merge;
+                } else {
+                    keys[dest] = keyScratch[cursor1];
+                    payload[dest++] = payloadScratch[cursor1++];
+                    count1++;
+                    count2 = 0;
+                    if (--len1 == 0)
+                        break merge;
+                }
+            } while ((count1 | count2) < minGallop);
+
+            //Galloping: copy whole stretches found by exponential search.
+            do {
+                count1 = countPrefix(keys[cursor2], keyScratch, cursor1, len1, true, false);
+                System.arraycopy(keyScratch, cursor1, keys, dest, count1);
+                System.arraycopy(payloadScratch, cursor1, payload, dest, count1);
+                dest += count1;
+                cursor1 += count1;
+                len1 -= count1;
+                if (len1 == 0)
+                    break merge;
+                keys[dest] = keys[cursor2];
+                payload[dest++] = payload[cursor2++];
+                if (--len2 == 0)
+                    break merge;
+
+                count2 = countPrefix(keyScratch[cursor1], keys, cursor2, len2, false, false);
+                System.arraycopy(keys, cursor2, keys, dest, count2);
+                System.arraycopy(payload, cursor2, payload, dest, count2);
+                dest += count2;
+                cursor2 += count2;
+                len2 -= count2;
+                if (len2 == 0)
+                    break merge;
+                keys[dest] = keyScratch[cursor1];
+                payload[dest++] = payloadScratch[cursor1++];
+                if (--len1 == 0)
+                    break merge;
+                if (minGallop > 1)
+                    minGallop--;
+            } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+            minGallop += 2;
+        }
+        //Whatever is left of run 2 is already in place.
+        System.arraycopy(keyScratch, cursor1, keys, dest, len1);
+        System.arraycopy(payloadScratch, cursor1, payload, dest, len1);
+    }
+
+    //Mirror image of mergeLo: the shorter second run is copied out and the
+    //result is written from the back.
+    private void mergeHi(int base1, int len1, int base2, int len2) {
+        ensureScratch(len2);
+        System.arraycopy(keys, base2, keyScratch, 0, len2);
+        System.arraycopy(payload, base2, payloadScratch, 0, len2);
+        stats.move(len1 + 2L * len2);
+        int cursor1 = base1 + len1 - 1;
+        int cursor2 = len2 - 1;
+        int dest = base2 + len2 - 1;
+
+        merge:
+        while (true) {
+            int count1 = 0;
+            int count2 = 0;
+            do {
+                stats.compare();
+                if (keys[cursor1] < keyScratch[cursor2]) {
+                    keys[dest] = keys[cursor1];
+                    payload[dest--] = payload[cursor1--];
+                    count1++;
+                    count2 = 0;
+                    if (--len1 == 0)
+                        break merge;
+                } else {
+                    keys[dest] = keyScratch[cursor2];
+                    payload[dest--] = payloadScratch[cursor2--];
+                    count2++;
+                    count1 = 0;
+                    if (--len2 == 0)
+                        break merge;
+                }
+            } while ((count1 | count2) < minGallop);
+
+            do {
+                //Trailing keys of run 1 below the last key of run 2.
+                count1 = len1 - countPrefix(keyScratch[cursor2], keys, base1, len1, true, true);
+                dest -= count1;
+                cursor1 -= count1;
+                len1 -= count1;
+                System.arraycopy(keys, cursor1 + 1, keys, dest + 1, count1);
+                System.arraycopy(payload, cursor1 + 1, payload, dest + 1, count1);
+                if (len1 == 0)
+                    break merge;
+                keys[dest] = keyScratch[cursor2];
+                payload[dest--] = payloadScratch[cursor2--];
+                if (--len2 == 0)
+                    break merge;
+
+                //Trailing keys of run 2 at or below the last key of run 1.
+                count2 = len2 - countPrefix(keys[cursor1], keyScratch, 0, len2, false, true);
+                dest -= count2;
+                cursor2 -= count2;
+                len2 -= count2;
+                System.arraycopy(keyScratch, cursor2 + 1, keys, dest + 1, count2);
+                System.arraycopy(payloadScratch, cursor2 + 1, payload, dest + 1, count2);
+                if (len2 == 0)
+                    break merge;
+                keys[dest] = keys[cursor1];
+                payload[dest--] = payload[cursor1--];
+                if (--len1 == 0)
+                    break merge;
+                if (minGallop > 1)
+                    minGallop--;
+            } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+            minGallop += 2;
+        }
+        //Whatever is left of run 1 is already in place.
+        System.arraycopy(keyScratch, 0, keys, dest - len2 + 1, len2);
+        System.arraycopy(payloadScratch, 0, payload, dest - len2 + 1, len2);
+    }
+
+    private void ensureScratch(int length) {
+        if (keyScratch.length < length) {
+            int capacity = Math.max(length, Math.min(keyScratch.length * 2, keys.length / 2 + 1));
+            keyScratch = new double[capacity];
+            payloadScratch = new int[capacity];
+        }
+    }
+}
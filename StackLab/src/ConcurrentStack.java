@@ -0,0 +1,122 @@
+import java.util.OptionalInt;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe, lock-free int stack with the same push/pop/peek/size
+ * operations as Stack, for sharing work between producer and consumer
+ * threads. It is a Treiber stack: the top node is held in an
+ * AtomicReference and every push or pop is a single compare-and-set.
+ *
+ * When a compare-and-set on the top fails because of contention, the
+ * thread backs off to an elimination array instead of retrying right
+ * away. A push parks its value in a random slot for a short while, and a
+ * pop that finds a parked value takes it, so the pair completes without
+ * touching the top at all.
+ *
+ * pop() and peek() on an empty stack return an empty OptionalInt.
+ */
+public class ConcurrentStack {
+    //How long a push waits in the elimination array for a pop.
+    private static final int ELIMINATION_SPINS = 64;
+
+    private final AtomicReference<Node> top = new AtomicReference<>();
+    private final AtomicReferenceArray<Node> elimination =
+            new AtomicReferenceArray<>(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 16)));
+
+    private static class Node {
+        final int value;
+        final Node next;
+        //Number of nodes from this one to the bottom, so size() is one read.
+        final int size;
+
+        Node(int value, Node next) {
+            this.value = value;
+            this.next = next;
+            this.size = next == null ? 1 : next.size + 1;
+        }
+    }
+
+    public boolean isEmpty() {
+        return top.get() == null;
+    }
+
+    public boolean push(int value) {
+        while (true) {
+            Node head = top.get();
+            if (top.compareAndSet(head, new Node(value, head))) {
+                return true;
+            }
+            if (eliminatePush(value)) {
+                return true;
+            }
+        }
+    }
+
+    public OptionalInt pop() {
+        while (true) {
+            Node head = top.get();
+            if (head == null) {
+                return OptionalInt.empty();
+            }
+            if (top.compareAndSet(head, head.next)) {
+                return OptionalInt.of(head.value);
+            }
+            Node offer = eliminatePop();
+            if (offer != null) {
+                return OptionalInt.of(offer.value);
+            }
+        }
+    }
+
+    public OptionalInt peek() {
+        Node head = top.get();
+        return head == null ? OptionalInt.empty() : OptionalInt.of(head.value);
+    }
+
+    public int size() {
+        Node head = top.get();
+        return head == null ? 0 : head.size;
+    }
+
+    //Parks value in a random free slot and waits briefly for a pop to take
+    //it. Returns true if one did.
+    private boolean eliminatePush(int value) {
+        int slot = ThreadLocalRandom.current().nextInt(elimination.length());
+        Node offer = new Node(value, null);
+        if (!elimination.compareAndSet(slot, null, offer)) {
+            return false;
+        }
+        for (int i = 0; i < ELIMINATION_SPINS; i++) {
+            if (elimination.get(slot) != offer) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        //Withdraw the offer, unless a pop took it at the last moment.
+        return !elimination.compareAndSet(slot, offer, null);
+    }
+
+    //Takes a value parked by a concurrent push, or returns null.
+    private Node eliminatePop() {
+        int slot = ThreadLocalRandom.current().nextInt(elimination.length());
+        Node offer = elimination.get(slot);
+        if (offer != null && elimination.compareAndSet(slot, offer, null)) {
+            return offer;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for (Node node = top.get(); node != null; node = node.next) {
+            string.append(node.value);
+            if (node.next != null) {
+                string.append(", ");
+            }
+        }
+        return string.toString();
+    }
+}
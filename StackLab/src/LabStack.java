@@ -1,27 +1,28 @@
-import java.util.ArrayList;
-
 public class LabStack {
-    public static ArrayList<Integer> popN(Stack st, int n) {
-        ArrayList<Integer> popped = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            popped.add(st.pop());
-        }
+    public static int[] popN(Stack st, int n) {
+        int[] popped = new int[n];
+        popN(st, n, popped);
         return popped;
     }
 
-    public static ArrayList<Integer> popAll(Stack st) {
+    //Pops n values into dest, top first. Reusing dest across calls avoids
+    //allocating anything while draining a stack.
+    public static void popN(Stack st, int n, int[] dest) {
+        if (n > st.size()) {
+            throw new IllegalArgumentException("Cannot pop " + n + " values from a stack of size " + st.size());
+        }
+        st.popN(n, dest);
+    }
+
+    public static int[] popAll(Stack st) {
         return popN(st, st.size());
     }
 
     public static int[] reverse(int[] arr) {
-        Stack placeholder = new Stack();
+        Stack placeholder = new Stack(Math.max(arr.length, 1));
         int[] reversed = new int[arr.length];
-        for (int i = 0; i < arr.length; i++) {
-            placeholder.push(arr[i]);
-        }
-        for (int i = 0; i < arr.length; i++) {
-            reversed[i] = placeholder.pop();
-        }
+        placeholder.pushAll(arr, 0, arr.length);
+        placeholder.popN(arr.length, reversed);
         return reversed;
     }
 }
@@ -0,0 +1,161 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * Int stack stored outside the Java heap, for stacks of hundreds of
+ * millions of values such as explicit-stack DFS over very large graphs.
+ *
+ * Values live in fixed-size direct ByteBuffer chunks. Growing allocates one
+ * more chunk and never copies existing values, and the garbage collector
+ * never has to scan or move them. Chunks are released as the stack shrinks,
+ * keeping one spare so a push/pop sequence at a chunk boundary does not
+ * allocate every time.
+ *
+ * close() frees all chunks immediately rather than waiting for the
+ * buffers to be collected. The stack cannot be used after that. Not
+ * thread-safe. Direct memory is limited by -XX:MaxDirectMemorySize, which
+ * defaults to the maximum heap size, so raise it for very deep stacks.
+ */
+public class OffHeapStack implements AutoCloseable {
+    //1M ints, i.e. 4 MB per chunk.
+    private static final int DEFAULT_CHUNK_SHIFT = 20;
+
+    //Unsafe.invokeCleaner, looked up once. null if unavailable, in which
+    //case close() just drops the buffers and leaves them to the collector.
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final int chunkShift;
+    private final int chunkMask;
+    private ByteBuffer[] chunks = new ByteBuffer[4];
+    //Number of chunks allocated, including the spare.
+    private int chunkCount;
+    private long size;
+    private boolean closed;
+
+    public OffHeapStack() {
+        this(DEFAULT_CHUNK_SHIFT);
+    }
+
+    //Each chunk holds 2^chunkShift ints.
+    public OffHeapStack(int chunkShift) {
+        if (chunkShift < 0 || chunkShift > 28) {
+            throw new IllegalArgumentException("Chunk shift must be between 0 and 28: " + chunkShift);
+        }
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1 << chunkShift) - 1;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean push(int value) {
+        checkOpen();
+        int chunk = (int) (size >>> chunkShift);
+        if (chunk == chunkCount) {
+            addChunk();
+        }
+        chunks[chunk].putInt(((int) size & chunkMask) << 2, value);
+        size++;
+        return true;
+    }
+
+    public int pop() {
+        int value = peek();
+        size--;
+        //Keep the chunks still in use plus one spare.
+        long inUse = (size + chunkMask) >>> chunkShift;
+        while (chunkCount > inUse + 1) {
+            free(chunks[--chunkCount]);
+            chunks[chunkCount] = null;
+        }
+        return value;
+    }
+
+    public int peek() {
+        checkOpen();
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        long last = size - 1;
+        return chunks[(int) (last >>> chunkShift)].getInt(((int) last & chunkMask) << 2);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    //Frees every chunk. Safe to call more than once.
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (int i = 0; i < chunkCount; i++) {
+            free(chunks[i]);
+            chunks[i] = null;
+        }
+        chunkCount = 0;
+        size = 0;
+    }
+
+    private void addChunk() {
+        if (chunkCount == chunks.length) {
+            //Only the array of references is copied, never the values.
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        chunks[chunkCount++] = ByteBuffer.allocateDirect(4 << chunkShift).order(ByteOrder.nativeOrder());
+    }
+
+    private static void free(ByteBuffer chunk) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, chunk);
+        } catch (ReflectiveOperationException e) {
+            //Leave it to the collector.
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Stack is closed");
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for (long i = size - 1; i >= 0; i--) {
+            string.append(chunks[(int) (i >>> chunkShift)].getInt(((int) i & chunkMask) << 2));
+            if (i > 0) {
+                string.append(", ");
+            }
+        }
+        return string.toString();
+    }
+}
@@ -1,11 +1,25 @@
+import java.util.Arrays;
+
 public class Stack {
-    private final int CAPACITY = 10;
+    private static final int DEFAULT_CAPACITY = 10;
+    //Largest array length the VM reliably allows.
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    //The array never shrinks below the capacity the stack started with.
+    private final int minCapacity;
     private int[] stack;
     private int size;
     private int index;
 
     public Stack() {
-        stack = new int[CAPACITY];
+        this(DEFAULT_CAPACITY);
+    }
+
+    public Stack(int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + initialCapacity);
+        }
+        minCapacity = initialCapacity;
+        stack = new int[initialCapacity];
         index = -1;
         size = 0;
     }
@@ -14,22 +28,72 @@ public class Stack {
         return size == 0;
     }
 
+    //Doubles the array when it is full, so push is O(1) amortized. Fails
+    //only once the stack holds MAX_CAPACITY values.
     public boolean push(int value) {
-        if (size == CAPACITY) {
-            return false;
+        if (size == stack.length) {
+            grow(size + 1L);
         }
         stack[size] = value;
         size++;
         return true;
     }
 
+    //Halves the array once it is only a quarter full. Shrinking at a
+    //quarter rather than a half keeps a push/pop sequence at the boundary
+    //from resizing every time.
     public int pop() {
         int value = stack[size - 1];
         stack[size - 1] = 0;
         size--;
+        if (size <= stack.length / 4 && stack.length / 2 >= minCapacity) {
+            resize(stack.length / 2);
+        }
         return value;
     }
 
+    //Pushes values[off] .. values[off + len - 1] in that order, so the last
+    //one ends up on top. Grows the array at most once, and fails like push
+    //if the result would exceed MAX_CAPACITY.
+    public boolean pushAll(int[] values, int off, int len) {
+        if (off < 0 || len < 0 || len > values.length - off) {
+            throw new IndexOutOfBoundsException("Range [" + off + ", " + off + " + " + len + ") out of bounds for length " + values.length);
+        }
+        if (size + (long) len > stack.length) {
+            grow(size + (long) len);
+        }
+        System.arraycopy(values, off, stack, size, len);
+        size += len;
+        return true;
+    }
+
+    //Pops up to n values into dest[0 .. n), top first, the same order as
+    //calling pop() n times. Returns how many were popped, which is less
+    //than n only if the stack runs out.
+    public int popN(int n, int[] dest) {
+        if (n < 0 || n > dest.length) {
+            throw new IndexOutOfBoundsException("Cannot pop " + n + " values into an array of length " + dest.length);
+        }
+        int count = Math.min(n, size);
+        int from = size - count;
+        System.arraycopy(stack, from, dest, 0, count);
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int swap = dest[i];
+            dest[i] = dest[j];
+            dest[j] = swap;
+        }
+        Arrays.fill(stack, from, size, 0);
+        size = from;
+        int capacity = stack.length;
+        while (size <= capacity / 4 && capacity / 2 >= minCapacity) {
+            capacity /= 2;
+        }
+        if (capacity != stack.length) {
+            resize(capacity);
+        }
+        return count;
+    }
+
     public int peek() {
         return stack[size - 1];
     }
@@ -38,6 +102,20 @@ public class Stack {
         return size;
     }
 
+    //Grows the array to hold at least required values, doubling where
+    //possible but never past MAX_CAPACITY.
+    private void grow(long required) {
+        if (required > MAX_CAPACITY) {
+            throw new IllegalStateException("Stack cannot hold more than " + MAX_CAPACITY + " values");
+        }
+        long doubled = Math.min(stack.length * 2L, MAX_CAPACITY);
+        resize((int) Math.max(doubled, required));
+    }
+
+    private void resize(int capacity) {
+        stack = Arrays.copyOf(stack, capacity);
+    }
+
     @Override
     public String toString() {
         StringBuilder string = new StringBuilder();